@@ -2,6 +2,10 @@
 
 package org.listware.core;
 
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.flink.statefun.sdk.Address;
 import org.apache.flink.statefun.sdk.Context;
 
 import org.listware.sdk.Functions;
@@ -17,6 +21,8 @@ public class FunctionContext {
 	private Context flinkContext;
 	private ObjectDocument document;
 	private Functions.FunctionContext functionContext;
+	private Address caller;
+	private Map<String, ObjectDocument> prefetched = Collections.emptyMap();
 
 
 	private class Matcher {
@@ -25,9 +31,15 @@ public class FunctionContext {
 	}
 
 	public FunctionContext(Context context, ObjectDocument document, Functions.FunctionContext functionContext) {
+		this(context, document, functionContext, context.caller());
+	}
+
+	public FunctionContext(Context context, ObjectDocument document, Functions.FunctionContext functionContext,
+			Address caller) {
 		this.flinkContext = context;
 		this.document = document;
 		this.functionContext = functionContext;
+		this.caller = caller;
 	}
 
 	public Context getFlinkContext() {
@@ -42,6 +54,29 @@ public class FunctionContext {
 		return functionContext;
 	}
 
+	public void setPrefetched(Map<String, ObjectDocument> prefetched) {
+		this.prefetched = prefetched;
+	}
+
+	/**
+	 * getPrefetched document read together with function document, null if it
+	 * was not prefetched
+	 **
+	 * @param id string
+	 */
+	public ObjectDocument getPrefetched(String id) {
+		return prefetched.get(id);
+	}
+
+	/**
+	 * caller of message, also after async continuation (flink context caller is
+	 * self there)
+	 **
+	 */
+	public Address getCaller() {
+		return caller;
+	}
+
 	/**
 	 * root
 	 **
@@ -8,8 +8,11 @@ import com.google.auto.service.AutoService;
 
 import org.apache.flink.statefun.sdk.spi.StatefulFunctionModule;
 import org.listware.core.provider.FunctionProvider;
+import org.listware.core.provider.functions.Aggregator;
+import org.listware.core.provider.functions.Backfill;
 import org.listware.core.provider.functions.Log;
 import org.listware.core.provider.functions.Register;
+import org.listware.core.provider.functions.ReplyBatcher;
 import org.listware.core.provider.functions.Router;
 import org.listware.core.provider.functions.link.AdvancedLink;
 import org.listware.core.provider.functions.link.LinkTrigger;
@@ -18,13 +21,19 @@ import org.listware.core.provider.functions.object.Object;
 import org.listware.core.provider.functions.object.ObjectTrigger;
 import org.listware.core.provider.functions.object.Type;
 import org.listware.core.provider.functions.object.TypeTrigger;
+import org.listware.core.utils.Settings;
 
 @AutoService(StatefulFunctionModule.class)
 public final class Module implements StatefulFunctionModule {
-	private FunctionProvider provider = new FunctionProvider();
+	private FunctionProvider provider = null;
 
 	@Override
 	public void configure(Map<String, String> globalConfiguration, Binder binder) {
+		// settings must be set before functions (and their cmdb clients) are built
+		Settings.configure(globalConfiguration);
+
+		provider = new FunctionProvider();
+
 		binder.bindFunctionProvider(Type.FUNCTION_TYPE, provider);
 		binder.bindFunctionProvider(TypeTrigger.FUNCTION_TYPE, provider);
 		binder.bindFunctionProvider(Object.FUNCTION_TYPE, provider);
@@ -35,5 +44,8 @@ public final class Module implements StatefulFunctionModule {
 		binder.bindFunctionProvider(Register.FUNCTION_TYPE, provider);
 		binder.bindFunctionProvider(AdvancedLink.FUNCTION_TYPE, provider);
 		binder.bindFunctionProvider(LinkTrigger.FUNCTION_TYPE, provider);
+		binder.bindFunctionProvider(ReplyBatcher.FUNCTION_TYPE, provider);
+		binder.bindFunctionProvider(Aggregator.FUNCTION_TYPE, provider);
+		binder.bindFunctionProvider(Backfill.FUNCTION_TYPE, provider);
 	}
 }
@@ -0,0 +1,399 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.cmdb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.listware.core.documents.DocumentCodec;
+import org.listware.core.documents.PayloadFormat;
+import org.listware.core.utils.Settings;
+import org.listware.core.utils.exceptions.UniqueViolationException;
+import org.listware.io.grpc.QDSLClient;
+import org.listware.sdk.pbcmdb.Core;
+import org.listware.sdk.pbcmdb.pbfinder.Finder;
+import org.listware.sdk.pbcmdb.pbqdsl.QDSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.arangodb.ArangoCursor;
+import com.arangodb.ArangoDB;
+import com.arangodb.ArangoDBException;
+import com.arangodb.ArangoDatabase;
+import com.arangodb.entity.DocumentCreateEntity;
+import com.arangodb.entity.DocumentUpdateEntity;
+import com.arangodb.entity.MultiDocumentEntity;
+import com.arangodb.model.DocumentCreateOptions;
+import com.arangodb.model.DocumentReadOptions;
+import com.arangodb.model.DocumentReplaceOptions;
+import com.arangodb.model.DocumentUpdateOptions;
+import com.arangodb.model.PersistentIndexOptions;
+import com.arangodb.velocypack.VPackParser;
+import com.arangodb.velocypack.VPackSlice;
+import com.google.protobuf.ByteString;
+
+/**
+ * Storage over direct ArangoDB connection (VelocyStream). Velocypack payloads
+ * are passed through as is, json payloads are converted. Settings:
+ * 'listware.cmdb.arangodb.host', '.port', '.user', '.password', '.database',
+ * '.max-connections' (default 'listware.cmdb.channels'). All storages of
+ * process share one driver (connection pool) and one qdsl client, last
+ * shutdown closes them. Object vertex and its edges are created with one
+ * AQL query, connections send keepalive every 'listware.cmdb.keepalive-ms'.
+ * Qdsl is compiled by cmdb service and still goes over gRPC.
+ * Driver is the synchronous one: CmdbStorage calls block like GrpcStorage
+ * stubs do, concurrency comes from AsyncCmdb and ConcurrencyLimiter, an async
+ * driver would be joined on every call
+ **
+ */
+public class ArangoStorage implements CmdbStorage {
+	@SuppressWarnings("unused")
+	private static final Logger LOG = LoggerFactory.getLogger(ArangoStorage.class);
+
+	private static final String PREFIX = "listware.cmdb.arangodb.";
+
+	private static final int DOCUMENT_NOT_FOUND = 1202;
+	private static final int NOT_MODIFIED = 304;
+	private static final int UNIQUE_CONSTRAINT_VIOLATED = 1210;
+
+	private static final String FIND_FROM = "FOR link IN links FILTER link._from == @from AND link._name == @name "
+			+ "RETURN link";
+	private static final String FIND_FROM_NAMES = "FOR link IN links FILTER link._from == @from "
+			+ "AND link._name IN @names RETURN link";
+	private static final String FIND_FROM_TO = "FOR link IN links FILTER link._from == @from AND link._to == @to "
+			+ "RETURN link";
+	private static final String FIND_FROM_PAGE = "FOR link IN links FILTER link._from == @from AND link._to > @after "
+			+ "SORT link._to LIMIT @limit RETURN link";
+
+	// one query is one transaction, writes of both collections or none
+	private static final String CREATE_GRAPH = "LET vertices = (FOR vertex IN @vertices "
+			+ "INSERT vertex INTO @@vertexCollection RETURN NEW) LET edges = (FOR edge IN @edges "
+			+ "INSERT edge INTO @@edgeCollection RETURN NEW) RETURN APPEND(vertices, edges)";
+
+	private static final VPackParser parser = new VPackParser.Builder().build();
+
+	// shared by all storages
+	private static ArangoDB arango = null;
+	private static QDSLClient qdslClient = null;
+	private static int references = 0;
+
+	private ArangoDatabase db;
+
+	public ArangoStorage() {
+		synchronized (ArangoStorage.class) {
+			if (references == 0) {
+				connect();
+			}
+			references++;
+
+			db = arango.db(Settings.getString(PREFIX + "database", "_system"));
+		}
+	}
+
+	private static void connect() {
+		String host = Settings.getString(PREFIX + "host", "localhost");
+		int port = Settings.getInt(PREFIX + "port", 8529);
+		int connections = Settings.getInt(PREFIX + "max-connections", Settings.getInt(CmdbClients.CHANNELS, 1));
+
+		arango = new ArangoDB.Builder().host(host, port).user(Settings.getString(PREFIX + "user", "root"))
+				.password(Settings.getString(PREFIX + "password", "")).maxConnections(Math.max(1, connections))
+				.keepAliveInterval(keepaliveInterval()).build();
+		qdslClient = new QDSLClient();
+
+		LOG.info("cmdb storage: arangodb " + host + ":" + port + ", " + connections + " connections");
+	}
+
+	// 'listware.cmdb.keepalive-ms' in seconds, null - driver default
+	private static Integer keepaliveInterval() {
+		long keepalive = Settings.getLong(KeepaliveChannelProvider.KEEPALIVE, 0);
+		if (keepalive <= 0) {
+			return null;
+		}
+		return (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(keepalive));
+	}
+
+	@Override
+	public Core.Response createVertex(String collection, ByteString payload) throws Exception {
+		return create(collection, payload);
+	}
+
+	@Override
+	public Core.Response readVertex(String collection, String key) throws Exception {
+		return read(collection, key);
+	}
+
+	@Override
+	public boolean hasConditionalReads() {
+		return true;
+	}
+
+	@Override
+	public Core.Response readVertexIfModified(String collection, String key, String rev) throws Exception {
+		DocumentReadOptions options = new DocumentReadOptions().ifNoneMatch(rev).catchException(false);
+		try {
+			return response(db.collection(collection).getDocument(key, VPackSlice.class, options));
+		} catch (ArangoDBException e) {
+			if (e.getResponseCode() != null && e.getResponseCode() == NOT_MODIFIED) {
+				return null;
+			}
+			return notFound(e);
+		}
+	}
+
+	@Override
+	public boolean hasMultiGet() {
+		return true;
+	}
+
+	@Override
+	public List<Core.Response> readVertices(String collection, List<String> keys) throws Exception {
+		MultiDocumentEntity<VPackSlice> entity = db.collection(collection).getDocuments(keys, VPackSlice.class);
+
+		// missing keys are reported as errors, found documents keep no position
+		Map<String, VPackSlice> documents = new HashMap<>();
+		for (VPackSlice document : entity.getDocuments()) {
+			documents.put(document.get("_key").getAsString(), document);
+		}
+
+		List<Core.Response> responses = new ArrayList<>(keys.size());
+		for (String key : keys) {
+			responses.add(response(documents.get(key)));
+		}
+		return responses;
+	}
+
+	@Override
+	public Core.Response updateVertex(String collection, String key, ByteString payload) throws Exception {
+		return update(collection, key, payload);
+	}
+
+	@Override
+	public Core.Response replaceVertex(String collection, String key, ByteString payload) throws Exception {
+		return replace(collection, key, payload);
+	}
+
+	@Override
+	public void removeVertex(String collection, String key) throws Exception {
+		remove(collection, key);
+	}
+
+	// edges are documents of edge collection, same api
+
+	@Override
+	public Core.Response createEdge(String collection, ByteString payload) throws Exception {
+		return create(collection, payload);
+	}
+
+	@Override
+	public Core.Response readEdge(String collection, String key) throws Exception {
+		return read(collection, key);
+	}
+
+	@Override
+	public Core.Response updateEdge(String collection, String key, ByteString payload) throws Exception {
+		return update(collection, key, payload);
+	}
+
+	@Override
+	public Core.Response replaceEdge(String collection, String key, ByteString payload) throws Exception {
+		return replace(collection, key, payload);
+	}
+
+	@Override
+	public void removeEdge(String collection, String key) throws Exception {
+		remove(collection, key);
+	}
+
+	@Override
+	public Finder.Response findFrom(String from, String name) throws Exception {
+		Map<String, Object> vars = new HashMap<>();
+		vars.put("from", from);
+		vars.put("name", name);
+		return find(FIND_FROM, vars);
+	}
+
+	@Override
+	public Finder.Response findFromNames(String from, Collection<String> names) throws Exception {
+		Map<String, Object> vars = new HashMap<>();
+		vars.put("from", from);
+		vars.put("names", names);
+		return find(FIND_FROM_NAMES, vars);
+	}
+
+	@Override
+	public Finder.Response findFromTo(String from, String to) throws Exception {
+		Map<String, Object> vars = new HashMap<>();
+		vars.put("from", from);
+		vars.put("to", to);
+		return find(FIND_FROM_TO, vars);
+	}
+
+	@Override
+	public Finder.Response findFromPage(String from, String after, int limit) throws Exception {
+		Map<String, Object> vars = new HashMap<>();
+		vars.put("from", from);
+		vars.put("after", after);
+		vars.put("limit", limit);
+		return find(FIND_FROM_PAGE, vars);
+	}
+
+	@Override
+	public QDSL.Elements qdsl(String query, QDSL.Options options) throws Exception {
+		return qdslClient.qdsl(query, options);
+	}
+
+	@Override
+	public boolean ensureUniqueIndex(String collection, String... fields) throws Exception {
+		db.collection(collection).ensurePersistentIndex(Arrays.asList(fields),
+				new PersistentIndexOptions().unique(true));
+		return true;
+	}
+
+	@Override
+	public boolean hasGraphCreate() {
+		return true;
+	}
+
+	@Override
+	public List<Core.Response> createGraph(String vertexCollection, List<ByteString> vertices,
+			String edgeCollection, List<ByteString> edges) throws Exception {
+		List<VPackSlice> vertexSlices = new ArrayList<>(vertices.size());
+		for (ByteString vertex : vertices) {
+			vertexSlices.add(slice(vertex));
+		}
+		List<VPackSlice> edgeSlices = new ArrayList<>(edges.size());
+		for (ByteString edge : edges) {
+			edgeSlices.add(slice(edge));
+		}
+
+		Map<String, Object> vars = new HashMap<>();
+		vars.put("@vertexCollection", vertexCollection);
+		vars.put("vertices", vertexSlices);
+		vars.put("@edgeCollection", edgeCollection);
+		vars.put("edges", edgeSlices);
+
+		VPackSlice created;
+		try {
+			created = db.query(CREATE_GRAPH, vars, null, VPackSlice.class).next();
+		} catch (ArangoDBException e) {
+			throw uniqueViolation(edgeCollection, e);
+		}
+
+		List<Core.Response> responses = new ArrayList<>(created.getLength());
+		for (int i = 0; i < created.getLength(); i++) {
+			responses.add(response(created.get(i)));
+		}
+		return responses;
+	}
+
+	@Override
+	public void shutdown() throws InterruptedException {
+		synchronized (ArangoStorage.class) {
+			if (references == 0 || --references > 0) {
+				return;
+			}
+
+			arango.shutdown();
+			qdslClient.shutdown();
+
+			arango = null;
+			qdslClient = null;
+		}
+	}
+
+	private Core.Response create(String collection, ByteString payload) throws Exception {
+		DocumentCreateOptions options = new DocumentCreateOptions().returnNew(true);
+		try {
+			DocumentCreateEntity<VPackSlice> entity = db.collection(collection).insertDocument(slice(payload),
+					options);
+			return response(entity.getNew());
+		} catch (ArangoDBException e) {
+			throw uniqueViolation(collection, e);
+		}
+	}
+
+	private Core.Response read(String collection, String key) throws Exception {
+		// null when not found
+		return response(db.collection(collection).getDocument(key, VPackSlice.class));
+	}
+
+	private Core.Response update(String collection, String key, ByteString payload) throws Exception {
+		try {
+			DocumentUpdateEntity<VPackSlice> entity = db.collection(collection).updateDocument(key, slice(payload),
+					new DocumentUpdateOptions().returnNew(true));
+			return response(entity.getNew());
+		} catch (ArangoDBException e) {
+			return notFound(uniqueViolation(collection, e));
+		}
+	}
+
+	private Core.Response replace(String collection, String key, ByteString payload) throws Exception {
+		try {
+			DocumentUpdateEntity<VPackSlice> entity = db.collection(collection).replaceDocument(key, slice(payload),
+					new DocumentReplaceOptions().returnNew(true));
+			return response(entity.getNew());
+		} catch (ArangoDBException e) {
+			return notFound(uniqueViolation(collection, e));
+		}
+	}
+
+	private void remove(String collection, String key) throws Exception {
+		db.collection(collection).deleteDocument(key);
+	}
+
+	private Finder.Response find(String query, Map<String, Object> vars) throws Exception {
+		ArangoCursor<VPackSlice> cursor = db.query(query, vars, null, VPackSlice.class);
+		List<VPackSlice> links = cursor.asListRemaining();
+
+		Finder.Response.Builder builder = Finder.Response.newBuilder();
+		for (VPackSlice link : links) {
+			builder.addLinks(Finder.Link.newBuilder().setPayload(payload(link)));
+		}
+		return builder.build();
+	}
+
+	private static ArangoDBException uniqueViolation(String collection, ArangoDBException e)
+			throws UniqueViolationException {
+		if (e.getErrorNum() != null && e.getErrorNum() == UNIQUE_CONSTRAINT_VIOLATED) {
+			throw new UniqueViolationException(collection, e);
+		}
+		return e;
+	}
+
+	private static Core.Response notFound(ArangoDBException e) throws ArangoDBException {
+		if (e.getErrorNum() != null && e.getErrorNum() == DOCUMENT_NOT_FOUND) {
+			return Core.Response.getDefaultInstance();
+		}
+		throw e;
+	}
+
+	private static Core.Response response(VPackSlice document) {
+		return Core.Response.newBuilder().setPayload(payload(document)).build();
+	}
+
+	// payload in 'listware.cmdb.payload-format', velocypack is not converted
+	private static ByteString payload(VPackSlice document) {
+		if (document == null) {
+			return ByteString.EMPTY;
+		}
+		if (DocumentCodec.getFormat() == PayloadFormat.VPACK) {
+			return ByteString.copyFrom(document.getBuffer(), document.getStart(), document.getByteSize());
+		}
+		return ByteString.copyFromUtf8(parser.toJson(document, true));
+	}
+
+	private static VPackSlice slice(ByteString payload) {
+		if (PayloadFormat.detect(payload) == PayloadFormat.VPACK) {
+			return new VPackSlice(payload.toByteArray());
+		}
+		return parser.fromJson(payload.toStringUtf8(), true);
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.cmdb;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.listware.core.documents.LinkDocument;
+import org.listware.core.documents.ObjectDocument;
+import org.listware.core.utils.Settings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Asynchronous cmdb, calls run off the task thread and complete futures that
+ * functions pass to context.registerAsyncOperation. Only calls without flink
+ * Context are here, sends must stay on the task thread. Queue is bounded by
+ * 'listware.cmdb.async-queue', calls over it run on the caller thread so a
+ * slow cmdb backpressures the task instead of piling up
+ **
+ */
+public class AsyncCmdb {
+	@SuppressWarnings("unused")
+	private static final Logger LOG = LoggerFactory.getLogger(AsyncCmdb.class);
+
+	public static final String ENABLED = "listware.cmdb.async";
+	public static final String THREADS = "listware.cmdb.async-threads";
+	public static final String QUEUE = "listware.cmdb.async-queue";
+
+	private static ExecutorService executor = null;
+
+	private static final ThreadLocal<Boolean> executorThread = ThreadLocal.withInitial(() -> false);
+
+	private Cmdb cmdb;
+
+	public AsyncCmdb(Cmdb cmdb) {
+		this.cmdb = cmdb;
+	}
+
+	/**
+	 * isEnabled async calls are enabled in configuration
+	 **
+	 */
+	public static boolean isEnabled() {
+		return Settings.getBoolean(ENABLED, false);
+	}
+
+	/**
+	 * isExecutorThread current thread runs async cmdb calls
+	 **
+	 */
+	public static boolean isExecutorThread() {
+		return executorThread.get();
+	}
+
+	// shared by all functions of task manager
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			int threads = Settings.getInt(THREADS, 32);
+			executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<>(Settings.getInt(QUEUE, 1024)),
+					new ThreadFactoryBuilder().setNameFormat("cmdb-async-%d").setDaemon(true).build(),
+					new ThreadPoolExecutor.AbortPolicy());
+		}
+		return executor;
+	}
+
+	/**
+	 * call run any blocking cmdb call asynchronously
+	 **
+	 * @param callable Callable
+	 */
+	public <T> CompletableFuture<T> call(Callable<T> callable) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+
+		// nested call from executor thread runs inline, waiting for it on a
+		// saturated pool would never finish
+		if (executorThread.get()) {
+			complete(future, callable);
+			return future;
+		}
+
+		try {
+			getExecutor().execute(() -> {
+				executorThread.set(true);
+				complete(future, callable);
+			});
+		} catch (RejectedExecutionException e) {
+			// queue is full, caller waits for its call
+			LOG.debug("cmdb async queue full, call runs on caller");
+			complete(future, callable);
+		}
+		return future;
+	}
+
+	private static <T> void complete(CompletableFuture<T> future, Callable<T> callable) {
+		try {
+			future.complete(callable.call());
+		} catch (Throwable t) {
+			future.completeExceptionally(t);
+		}
+	}
+
+	public CompletableFuture<ObjectDocument> readDocument(String id) {
+		return call(() -> cmdb.readDocument(id));
+	}
+
+	/**
+	 * readDocuments read objects and links at once (see Cmdb.readDocuments)
+	 **
+	 * @param ids Collection
+	 */
+	public CompletableFuture<Map<String, ObjectDocument>> readDocuments(Collection<String> ids) {
+		return call(() -> cmdb.readDocuments(ids));
+	}
+
+	public CompletableFuture<ObjectDocument> readAnyDocument(String id) {
+		return call(() -> cmdb.readAnyDocument(id));
+	}
+
+	public CompletableFuture<LinkDocument> readLinkDocument(String id) {
+		return call(() -> cmdb.readLinkDocument(id));
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.cmdb;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import org.listware.core.documents.LinkDocument;
+import org.listware.core.documents.ObjectDocument;
+import org.listware.core.utils.Settings;
+import org.listware.core.utils.exceptions.DeadlineExceededException;
+import org.listware.core.utils.exceptions.PayloadNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Micro-batching of document reads across invocations. Reads are collected
+ * for 'listware.cmdb.batch.window-us' or up to 'listware.cmdb.batch.max-size'
+ * ids and sent as one multi-get (see Cmdb.readDocuments), results are fanned
+ * out to callers. Callers wait at most 'listware.cmdb.batch.timeout-ms'.
+ * Used only with storages that have multi-get (CmdbStorage.hasMultiGet)
+ **
+ */
+public class BatchLoader {
+	@SuppressWarnings("unused")
+	private static final Logger LOG = LoggerFactory.getLogger(BatchLoader.class);
+
+	public static final String ENABLED = "listware.cmdb.batch.enabled";
+	public static final String WINDOW = "listware.cmdb.batch.window-us";
+	public static final String MAX_SIZE = "listware.cmdb.batch.max-size";
+	public static final String TIMEOUT = "listware.cmdb.batch.timeout-ms";
+
+	private static BatchLoader instance = null;
+
+	private final Function<List<String>, CompletableFuture<Map<String, ObjectDocument>>> reader;
+
+	private final long window;
+	private final int maxSize;
+	private final long timeout;
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactoryBuilder().setNameFormat("cmdb-batch-%d").setDaemon(true).build());
+
+	// id -> callers waiting for it
+	private Map<String, List<CompletableFuture<ObjectDocument>>> pending = new LinkedHashMap<>();
+	private boolean scheduled = false;
+
+	private BatchLoader(Function<List<String>, CompletableFuture<Map<String, ObjectDocument>>> reader) {
+		this.reader = reader;
+		this.window = Settings.getLong(WINDOW, 500);
+		this.maxSize = Settings.getInt(MAX_SIZE, 64);
+		this.timeout = Settings.getLong(TIMEOUT, 30000);
+	}
+
+	public static boolean isEnabled() {
+		return Settings.getBoolean(ENABLED, false);
+	}
+
+	/**
+	 * getInstance process wide loader
+	 **
+	 * @param async AsyncCmdb
+	 */
+	public static synchronized BatchLoader getInstance(AsyncCmdb async) {
+		if (instance == null) {
+			instance = new BatchLoader(async::readDocuments);
+		}
+		return instance;
+	}
+
+	/**
+	 * get document, waits for its batch
+	 **
+	 * @param id string
+	 */
+	public ObjectDocument get(String id) throws Exception {
+		try {
+			return load(id).get(timeout, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		} catch (TimeoutException e) {
+			throw new DeadlineExceededException("batch read", timeout);
+		}
+	}
+
+	/**
+	 * load document, completes when its batch is read
+	 **
+	 * @param id string
+	 */
+	public CompletableFuture<ObjectDocument> load(String id) {
+		CompletableFuture<ObjectDocument> future = new CompletableFuture<>();
+
+		boolean flush = false;
+		synchronized (this) {
+			pending.computeIfAbsent(id, key -> new ArrayList<>()).add(future);
+
+			if (pending.size() >= maxSize) {
+				flush = true;
+			} else if (!scheduled) {
+				scheduled = true;
+				scheduler.schedule(this::flush, window, TimeUnit.MICROSECONDS);
+			}
+		}
+
+		if (flush) {
+			flush();
+		}
+		return future;
+	}
+
+	private void flush() {
+		Map<String, List<CompletableFuture<ObjectDocument>>> batch;
+		synchronized (this) {
+			batch = pending;
+			pending = new LinkedHashMap<>();
+			scheduled = false;
+		}
+
+		if (batch.isEmpty()) {
+			return;
+		}
+
+		LOG.debug("batch of " + batch.size() + " reads");
+
+		reader.apply(new ArrayList<>(batch.keySet())).whenComplete((documents, t) -> {
+			batch.forEach((id, futures) -> {
+				if (t != null) {
+					complete(futures, null, t);
+				} else if (documents.containsKey(id)) {
+					complete(futures, documents.get(id), null);
+				} else {
+					// multi-get leaves out missing documents
+					complete(futures, null, new PayloadNotFoundException());
+				}
+			});
+		});
+	}
+
+	// documents are mutable, every caller gets own copy
+	private static void complete(List<CompletableFuture<ObjectDocument>> futures, ObjectDocument document,
+			Throwable t) {
+		for (int i = 0; i < futures.size(); i++) {
+			if (t != null) {
+				futures.get(i).completeExceptionally(t);
+				continue;
+			}
+			try {
+				futures.get(i).complete(i == 0 ? document : copy(document));
+			} catch (Exception e) {
+				futures.get(i).completeExceptionally(e);
+			}
+		}
+	}
+
+	private static ObjectDocument copy(ObjectDocument document) throws Exception {
+		if (document instanceof LinkDocument) {
+			return LinkDocument.lazy(document.serialize());
+		}
+		return ObjectDocument.lazy(document.serialize());
+	}
+}
@@ -0,0 +1,217 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.cmdb;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.listware.core.utils.Settings;
+import org.listware.core.utils.exceptions.DeadlineExceededException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Deadline, retry and hedging policy of cmdb operation. Settings per
+ * operation ('read', 'query', 'write'):
+ * 'listware.cmdb.policy.$operation.deadline-ms', '.retries', '.backoff-ms',
+ * '.hedge'. Only idempotent operations may retry or hedge. Cmdb clients take
+ * no call deadline, attempts with deadline or hedge run on at most
+ * 'listware.cmdb.policy.threads' threads and are interrupted when they lose,
+ * so writes have no deadline unless configured. Attempts over the thread
+ * bound run on the caller without deadline. Calls wait for concurrency limit
+ * before the policy (see ConcurrencyLimiter), not on its threads
+ **
+ */
+public class CallPolicy {
+	@SuppressWarnings("unused")
+	private static final Logger LOG = LoggerFactory.getLogger(CallPolicy.class);
+
+	public static final String READ = "read";
+	public static final String QUERY = "query";
+	public static final String WRITE = "write";
+
+	private static final String PREFIX = "listware.cmdb.policy.";
+
+	public static final String THREADS = PREFIX + "threads";
+
+	// latency samples for hedge delay (p95)
+	private static final int SAMPLES = 256;
+
+	private static final Map<String, CallPolicy> policies = new ConcurrentHashMap<>();
+
+	private static final ExecutorService executor = new ThreadPoolExecutor(0, Math.max(1, Settings.getInt(THREADS, 64)),
+			60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+			new ThreadFactoryBuilder().setNameFormat("cmdb-call-%d").setDaemon(true).build(),
+			new ThreadPoolExecutor.AbortPolicy());
+
+	private final String operation;
+	private final long deadline;
+	private final int retries;
+	private final long backoff;
+	private final boolean hedge;
+
+	private final long[] samples = new long[SAMPLES];
+	private final AtomicInteger sampled = new AtomicInteger();
+	private volatile long hedgeDelay = 0;
+
+	private CallPolicy(String operation, long deadline, int retries, boolean hedge) {
+		this.operation = operation;
+		this.deadline = Settings.getLong(PREFIX + operation + ".deadline-ms", deadline);
+		this.backoff = Settings.getLong(PREFIX + operation + ".backoff-ms", 50);
+
+		boolean idempotent = !WRITE.equals(operation);
+		this.retries = idempotent ? Settings.getInt(PREFIX + operation + ".retries", retries) : 0;
+		this.hedge = idempotent && Settings.getBoolean(PREFIX + operation + ".hedge", hedge);
+	}
+
+	/**
+	 * of policy of operation
+	 **
+	 * @param operation string
+	 */
+	public static CallPolicy of(String operation) {
+		return policies.computeIfAbsent(operation, key -> {
+			switch (key) {
+			case READ:
+				return new CallPolicy(key, 5000, 2, false);
+			case QUERY:
+				return new CallPolicy(key, 10000, 2, false);
+			default:
+				// interrupted write may still be applied
+				return new CallPolicy(key, 0, 0, false);
+			}
+		});
+	}
+
+	/**
+	 * call run call with deadline, retries and hedging of policy
+	 **
+	 * @param callable Callable
+	 */
+	public <T> T call(Callable<T> callable) throws Exception {
+		for (int attempt = 0;; attempt++) {
+			try {
+				return attempt(callable);
+			} catch (Exception e) {
+				if (attempt >= retries || !isRetryable(e)) {
+					throw e;
+				}
+				// full jitter
+				long sleep = ThreadLocalRandom.current().nextLong(backoff << attempt) + 1;
+				LOG.debug("cmdb " + operation + " retry " + (attempt + 1) + " in " + sleep + " ms: "
+						+ e.getLocalizedMessage());
+				Thread.sleep(sleep);
+			}
+		}
+	}
+
+	private <T> T attempt(Callable<T> callable) throws Exception {
+		if (deadline <= 0 && !hedge) {
+			return timed(callable);
+		}
+
+		long timeout = deadline > 0 ? TimeUnit.MILLISECONDS.toNanos(deadline) : Long.MAX_VALUE;
+		long start = System.nanoTime();
+
+		CompletableFuture<T> winner = new CompletableFuture<>();
+		AtomicInteger running = new AtomicInteger(1);
+
+		Future<?> first;
+		try {
+			first = executor.submit(() -> run(callable, winner, running));
+		} catch (RejectedExecutionException e) {
+			LOG.debug("cmdb " + operation + " threads busy, call runs on caller");
+			return timed(callable);
+		}
+		Future<?> second = null;
+
+		try {
+			if (hedge && hedgeDelay > 0 && hedgeDelay < timeout) {
+				try {
+					return winner.get(hedgeDelay, TimeUnit.NANOSECONDS);
+				} catch (TimeoutException e) {
+					// slower than p95, send the same read again
+					running.incrementAndGet();
+					try {
+						second = executor.submit(() -> run(callable, winner, running));
+						LOG.debug("cmdb " + operation + " hedged");
+					} catch (RejectedExecutionException rejected) {
+						running.decrementAndGet();
+					}
+				}
+			}
+
+			long remaining = timeout == Long.MAX_VALUE ? Long.MAX_VALUE : timeout - (System.nanoTime() - start);
+			return winner.get(remaining, TimeUnit.NANOSECONDS);
+		} catch (TimeoutException e) {
+			throw new DeadlineExceededException(operation, deadline);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		} finally {
+			// interrupt the loser (or both after deadline)
+			first.cancel(true);
+			if (second != null) {
+				second.cancel(true);
+			}
+		}
+	}
+
+	private <T> void run(Callable<T> callable, CompletableFuture<T> winner, AtomicInteger running) {
+		try {
+			winner.complete(timed(callable));
+		} catch (Throwable t) {
+			// fail only when no other attempt can win
+			if (running.decrementAndGet() == 0) {
+				winner.completeExceptionally(t);
+			}
+		}
+	}
+
+	private <T> T timed(Callable<T> callable) throws Exception {
+		long start = System.nanoTime();
+		T value = callable.call();
+		sample(System.nanoTime() - start);
+		return value;
+	}
+
+	private void sample(long latency) {
+		int n = sampled.getAndIncrement();
+		samples[n % SAMPLES] = latency;
+
+		// recompute p95 every window
+		if (hedge && n % SAMPLES == SAMPLES - 1) {
+			long[] sorted = Arrays.copyOf(samples, SAMPLES);
+			Arrays.sort(sorted);
+			hedgeDelay = sorted[(int) (SAMPLES * 0.95)];
+		}
+	}
+
+	private static boolean isRetryable(Exception e) {
+		return ConcurrencyLimiter.isOverload(e);
+	}
+
+	public long getHedgeDelay() {
+		return hedgeDelay;
+	}
+}
@@ -5,10 +5,28 @@
 
 package org.listware.core.cmdb;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
 import org.apache.flink.statefun.sdk.Context;
 import org.apache.flink.statefun.sdk.reqreply.generated.TypedValue;
+import org.listware.core.documents.DocumentCodec;
+import org.listware.core.documents.DocumentPatch;
 import org.listware.core.documents.LinkDocument;
 import org.listware.core.documents.ObjectDocument;
+import org.listware.core.documents.entity.DocumentFields;
 import org.listware.core.provider.functions.Register;
 import org.listware.core.provider.functions.Router;
 import org.listware.core.provider.functions.link.AdvancedLink;
@@ -17,10 +35,10 @@ import org.listware.core.provider.functions.object.ObjectTrigger;
 import org.listware.core.provider.functions.object.Type;
 import org.listware.core.provider.functions.object.Link;
 import org.listware.core.provider.functions.object.Object;
+import org.listware.core.utils.Settings;
 import org.listware.core.utils.exceptions.AlreadyLinkException;
 import org.listware.core.utils.exceptions.NoLinkException;
-import org.listware.io.grpc.FinderClient;
-import org.listware.io.grpc.QDSLClient;
+import org.listware.core.utils.exceptions.UniqueViolationException;
 import org.listware.io.utils.TypedValueDeserializer;
 import org.listware.io.utils.Constants.Namespaces;
 import org.listware.sdk.Functions;
@@ -57,38 +75,190 @@ public class Cmdb {
 		public static final String SYSTEM = "system";
 	}
 
-	private ObjectClient objectClient = new ObjectClient();
-	private LinkClient linkClient = new LinkClient();
-	private QDSLClient qdslClient = new QDSLClient();
-	private FinderClient finderClient = new FinderClient();
+	private ObjectClient objectClient;
+	private LinkClient linkClient;
+	private CmdbStorage storage;
+
+	private boolean released;
+
+	private DocumentCache cache = DocumentCache.getInstance();
+
+	private AsyncCmdb async = new AsyncCmdb(this);
+
+	private TypeIdCache typeIds = TypeIdCache.getInstance();
+
+	// reads of many invocations in one multi-get, null if disabled or storage
+	// has no multi-get (batch would cost the same round trips plus waiting)
+	private BatchLoader batchLoader;
+
+	// identical concurrent finder and qdsl queries share one call
+	private static final SingleFlight<String, Finder.Response> finds = new SingleFlight<>();
+	private static final SingleFlight<String, QDSL.Elements> queries = new SingleFlight<>();
+
+	private static final ConcurrencyLimiter limiter = ConcurrencyLimiter.getInstance();
+
+	private static final CallPolicy queryPolicy = CallPolicy.of(CallPolicy.QUERY);
+
+	public static final String COMPENSATING_CREATE = "listware.cmdb.compensating-create";
+
+	// objects are created with one request if storage can, otherwise with
+	// parallel edges and compensating removal (if enabled) or stepwise
+	private boolean compensatingCreate = Settings.getBoolean(COMPENSATING_CREATE, true);
+
+	// links has unique persistent index on (_from, _name), no finder pre-checks.
+	// Index is created on first use if storage can, else names are pre-checked
+	public static final String UNIQUE_LINKS = "listware.cmdb.unique-links";
+
+	private boolean uniqueLinks = Settings.getBoolean(UNIQUE_LINKS, false);
+
+	// storage ensured unique index on links, null until asked
+	private Boolean indexEnsured = null;
+
+	// shared channels, see CmdbClients
+	public Cmdb() {
+		CmdbClients clients = CmdbClients.acquire();
+		objectClient = clients.getObjectClient();
+		linkClient = clients.getLinkClient();
+		storage = clients.getStorage();
+		released = false;
+		batchLoader = batchLoader(storage);
+	}
+
+	// own storage, not taken from pool
+	Cmdb(CmdbStorage storage) {
+		objectClient = new ObjectClient(storage);
+		linkClient = new LinkClient(storage);
+		this.storage = storage;
+		released = true;
+		batchLoader = batchLoader(storage);
+	}
+
+	private BatchLoader batchLoader(CmdbStorage storage) {
+		if (BatchLoader.isEnabled() && storage.hasMultiGet()) {
+			return BatchLoader.getInstance(async);
+		}
+		return null;
+	}
+
+	public synchronized void shutdown() throws InterruptedException {
+		if (!released) {
+			released = true;
+			CmdbClients.release();
+		}
+	}
+
+	/**
+	 * qdsl query
+	 **
+	 * @param query   string
+	 * @param options QDSL.Options
+	 */
+	public QDSL.Elements qdsl(String query, QDSL.Options options) throws Exception {
+		return queries.call(query + "\n" + options,
+				() -> limiter.query(() -> queryPolicy.call(() -> storage.qdsl(query, options))));
+	}
+
+	private Finder.Response findFrom(String from, String name) throws Exception {
+		return finds.call("name\n" + from + "\n" + name,
+				() -> limiter.call(() -> queryPolicy.call(() -> storage.findFrom(from, name))));
+	}
 
-	public void shutdown() throws InterruptedException {
-		objectClient.shutdown();
-		linkClient.shutdown();
-		qdslClient.shutdown();
-		finderClient.shutdown();
+	// full document payload with content fingerprint in meta
+	private static ByteString content(ObjectDocument document) throws Exception {
+		document.updateHash();
+		return document.serialize();
 	}
 
-	// R same for types/objects/system
+	// R same for types/objects/system, system and types are cached
 	public ObjectDocument readDocument(String id) throws Exception {
-		return objectClient.readDocument(id);
+		// cached ids don't wait for batch, executor threads can't wait for it
+		if (batchLoader != null && !cache.isCached(id) && !AsyncCmdb.isExecutorThread()) {
+			return batchLoader.get(id);
+		}
+		return loadDocument(id);
+	}
+
+	private ObjectDocument loadDocument(String id) throws Exception {
+		if (!cache.isCached(id)) {
+			return objectClient.readDocument(id);
+		}
+		return ObjectDocument.lazy(
+				cache.get(id, storage.hasConditionalReads(), rev -> objectClient.readPayload(id, rev)));
+	}
+
+	/**
+	 * readDocuments read many objects and links at once, objects of one
+	 * collection with one storage call. Ids that can't be read are left out
+	 **
+	 * @param ids Collection
+	 */
+	public Map<String, ObjectDocument> readDocuments(Collection<String> ids) throws Exception {
+		Map<String, ObjectDocument> documents = new LinkedHashMap<>();
+
+		// collection -> keys, links and cached documents are read alone
+		Map<String, List<String>> keys = new LinkedHashMap<>();
+		for (String id : new LinkedHashSet<>(ids)) {
+			int index = id.indexOf('/');
+			if (index > 0 && !id.startsWith(Collections.LINKS + "/") && !cache.isCached(id)) {
+				keys.computeIfAbsent(id.substring(0, index), collection -> new ArrayList<>())
+						.add(id.substring(index + 1));
+				continue;
+			}
+
+			try {
+				documents.put(id, readAnyDocument(id));
+			} catch (Exception e) {
+				LOG.debug("not read " + id);
+			}
+		}
+
+		for (Map.Entry<String, List<String>> entry : keys.entrySet()) {
+			documents.putAll(objectClient.readDocuments(entry.getKey(), entry.getValue()));
+		}
+		return documents;
+	}
+
+	// object or link by collection of id, not batched
+	ObjectDocument readAnyDocument(String id) throws Exception {
+		if (id.startsWith(Collections.LINKS + "/")) {
+			return readLinkDocument(id);
+		}
+		return loadDocument(id);
 	}
 
+	// only changed properties are sent for documents loaded from cmdb
 	private ObjectDocument updateDocument(ObjectDocument document) throws Exception {
-		document = objectClient.updateDocument(document.getId(), document.serialize());
+		// write response may not be the full document, next read loads it
+		cache.invalidate(document.getId());
+
+		DocumentPatch patch = DocumentPatch.of(document);
+		if (patch.isReplace()) {
+			document = objectClient.replaceDocument(document.getId(), patch.getPayload());
+		} else {
+			document = objectClient.updateDocument(document.getId(), patch.getPayload());
+		}
+		// reads racing with the write may have loaded the old payload
+		cache.invalidate(document.getId());
 		LOG.debug("updated " + document.getId());
 		return document;
 	}
 
 	private ObjectDocument replaceDocument(ObjectDocument document) throws Exception {
-		document = objectClient.replaceDocument(document.getId(), document.serialize());
+		cache.invalidate(document.getId());
+
+		document = objectClient.replaceDocument(document.getId(), content(document));
+		cache.invalidate(document.getId());
 		LOG.debug("replaced " + document.getId());
 		return document;
 	}
 
 	// D same for types/objects/system
 	private void removeDocument(ObjectDocument document) throws Exception {
+		cache.invalidate(document.getId());
+
 		objectClient.removeDocument(document.getId());
+		cache.invalidate(document.getId());
+		typeIds.invalidate(document.getId());
 		LOG.debug("deleted " + document.getId());
 	}
 
@@ -98,57 +268,167 @@ public class Cmdb {
 	}
 
 	public LinkDocument readLinkDocumentByName(String from, String name) throws Exception {
-		Finder.Response response = finderClient.findFrom(from, name);
+		Finder.Response response = findFrom(from, name);
 		if (response.getLinksCount() == 0) {
 			throw new NoLinkException(from, name);
 		}
-		return LinkDocument.deserialize(response.getLinks(0).getPayload());
+		return LinkDocument.lazy(response.getLinks(0).getPayload());
 	}
 
 	public LinkDocument readLinkDocumentByTo(String from, String to) throws Exception {
-		Finder.Response response = finderClient.findFromTo(from, to);
+		Finder.Response response = finds.call("to\n" + from + "\n" + to,
+				() -> limiter.call(() -> queryPolicy.call(() -> storage.findFromTo(from, to))));
 		if (response.getLinksCount() == 0) {
 			throw new NoLinkException(from);
 		}
-		return LinkDocument.deserialize(response.getLinks(0).getPayload());
+		return LinkDocument.lazy(response.getLinks(0).getPayload());
 	}
 
 	// do not duplicate link with name
 	public void checkFrom(ObjectDocument parent, String name) throws Exception {
-		Finder.Response response = finderClient.findFrom(parent.getId(), name);
+		Finder.Response response = findFrom(parent.getId(), name);
 		if (response.getLinksCount() > 0) {
 			throw new AlreadyLinkException(parent.getId(), name);
 		}
 	}
 
+	// pre-check unless links collection has unique index
+	private void checkName(ObjectDocument parent, String name) throws Exception {
+		if (!uniqueIndex()) {
+			checkFrom(parent, name);
+		}
+	}
+
+	/**
+	 * uniqueIndex duplicate link names are rejected by storage. Only an index
+	 * the storage ensured is trusted, storages that can't manage indexes keep
+	 * finder pre-checks even with 'listware.cmdb.unique-links'
+	 **
+	 */
+	private synchronized boolean uniqueIndex() {
+		if (!uniqueLinks) {
+			return false;
+		}
+		if (indexEnsured == null) {
+			try {
+				indexEnsured = storage.ensureUniqueIndex(Collections.LINKS, DocumentFields.FROM, DocumentFields.NAME);
+			} catch (Exception e) {
+				LOG.error("unique index on " + Collections.LINKS + ": " + e.getLocalizedMessage());
+				return false;
+			}
+			if (!indexEnsured) {
+				LOG.warn(UNIQUE_LINKS + " needs unique index on " + Collections.LINKS
+						+ " (_from, _name) that storage can't ensure, names are pre-checked");
+			}
+		}
+		return indexEnsured;
+	}
+
+	// names must be unique in batch, stored ones are found with one query
+	private void checkNames(ObjectDocument parent, List<String> names) throws Exception {
+		Set<String> unique = new HashSet<>();
+		for (String name : names) {
+			if (!unique.add(name)) {
+				throw new AlreadyLinkException(parent.getId(), name);
+			}
+		}
+
+		if (!uniqueIndex()) {
+			Finder.Response response = limiter
+					.call(() -> queryPolicy.call(() -> storage.findFromNames(parent.getId(), names)));
+			if (response.getLinksCount() > 0) {
+				LinkDocument link = LinkDocument.lazy(response.getLinks(0).getPayload());
+				throw new AlreadyLinkException(parent.getId(), link.getName());
+			}
+		}
+	}
+
+	// unique index violation is duplicate link name
+	private LinkDocument createLinkDocument(LinkDocument link) throws Exception {
+		forget(link);
+		try {
+			return linkClient.createDocument(Collections.LINKS, content(link));
+		} catch (Exception e) {
+			if (isUniqueViolation(e)) {
+				throw new AlreadyLinkException(link.getFrom(), link.getName());
+			}
+			throw e;
+		} finally {
+			forget(link);
+		}
+	}
+
+	/**
+	 * forget finder and qdsl calls in flight that link write changes, calls
+	 * started before the write must not be shared after it
+	 **
+	 * @param link LinkDocument
+	 */
+	private static void forget(LinkDocument link) {
+		finds.forget("name\n" + link.getFrom() + "\n" + link.getName());
+		finds.forget("to\n" + link.getFrom() + "\n" + link.getTo());
+		// any query may traverse link
+		queries.forgetAll();
+	}
+
+	// storages report violated unique index with own exception
+	private static boolean isUniqueViolation(Throwable e) {
+		for (Throwable t = e; t != null; t = t.getCause()) {
+			if (t instanceof UniqueViolationException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	public LinkDocument updateLinkDocument(LinkDocument document) throws Exception {
-		document = linkClient.updateDocument(document.getId(), document.serialize());
+		forget(document);
+
+		DocumentPatch patch = DocumentPatch.of(document);
+		if (patch.isReplace()) {
+			document = linkClient.replaceDocument(document.getId(), patch.getPayload());
+		} else {
+			document = linkClient.updateDocument(document.getId(), patch.getPayload());
+		}
+		forget(document);
 		LOG.debug("updated " + document.getId());
 		return document;
 	}
 
 	public LinkDocument replaceLinkDocument(LinkDocument document) throws Exception {
-		document = linkClient.replaceDocument(document.getId(), document.serialize());
+		forget(document);
+
+		document = linkClient.replaceDocument(document.getId(), content(document));
+		forget(document);
 		LOG.debug("replaced " + document.getId());
 		return document;
 	}
 
 	// D links
 	public void removeDocument(LinkDocument document) throws Exception {
-		linkClient.removeDocument(document.getId());
+		removeLinkDocument(document);
 		LOG.debug("deleted " + document.getId());
 	}
 
+	private void removeLinkDocument(LinkDocument document) throws Exception {
+		forget(document);
+		try {
+			linkClient.removeDocument(document.getId());
+		} finally {
+			forget(document);
+		}
+	}
+
 	/*******************************************************************************************/
 	// C for SYSTEM
 	public ObjectDocument createSystem(ObjectDocument document) throws Exception {
-		document = objectClient.createDocument(Collections.SYSTEM, document.serialize());
+		document = objectClient.createDocument(Collections.SYSTEM, content(document));
 		LOG.debug("created system " + document.getId());
 		return document;
 	}
 
 	public ObjectDocument createSystem(ObjectDocument parent, ObjectDocument document) throws Exception {
-		document = objectClient.createDocument(Collections.SYSTEM, document.serialize());
+		document = objectClient.createDocument(Collections.SYSTEM, content(document));
 
 		LOG.debug("created system " + document.getId());
 
@@ -162,7 +442,7 @@ public class Cmdb {
 
 	// types C
 	public ObjectDocument createType(ObjectDocument document) throws Exception {
-		document = objectClient.createDocument(Collections.TYPES, document.serialize());
+		document = objectClient.createDocument(Collections.TYPES, content(document));
 
 		ObjectDocument types = readDocument("system/types");
 
@@ -196,13 +476,7 @@ public class Cmdb {
 	public ObjectDocument createObject(ObjectDocument type, ObjectDocument document) throws Exception {
 		ObjectDocument objects = readDocument("system/objects");
 
-		document = objectClient.createDocument(Collections.OBJECTS, document.serialize());
-
-		// link type -> object ($uuid)
-		createLink(type, document, type.getKey(), document.getKey());
-
-		// link objects -> object ($uuid)
-		createLink(objects, document, type.getKey(), document.getKey());
+		document = insertObject(type, objects, null, document, null);
 
 		LOG.debug("created object " + document.getId());
 
@@ -225,29 +499,282 @@ public class Cmdb {
 	public ObjectDocument createObject(ObjectDocument type, ObjectDocument parent, ObjectDocument document, String name)
 			throws Exception {
 
-		checkFrom(parent, name);
+		checkName(parent, name);
 
-		document = createObject(type, document);
+		ObjectDocument objects = readDocument("system/objects");
 
-		// link parent -> object ($uuid)
-		createLink(parent, document, type.getKey(), name);
+		document = insertObject(type, objects, parent, document, name);
+
+		LOG.debug("created object " + document.getId());
 
 		return document;
 	}
 
 	public ObjectDocument createObject(Context context, ObjectDocument type, ObjectDocument parent,
 			ObjectDocument document, String name) throws Exception {
+		document = createObject(type, parent, document, name);
 
-		checkFrom(parent, name);
+		Functions.FunctionContext pbFunctionContext = ObjectTrigger.Trigger(document.getId(), Core.Method.CREATE);
 
-		document = createObject(context, type, document);
+		TypedValue typedValue = TypedValueDeserializer.fromMessageLite(pbFunctionContext);
 
-		// link parent -> object ($uuid)
-		createLink(parent, document, type.getKey(), name);
+		context.send(ObjectTrigger.FUNCTION_TYPE, document.getId(), typedValue);
 
 		return document;
 	}
 
+	/**
+	 * createObjects create objects of one type with parent. Names are checked
+	 * with one lookup before any insert, objects and links are inserted with
+	 * one request where storage can (all or nothing), else in parallel and
+	 * created objects are removed again if any insert fails
+	 **
+	 * @param type      ObjectDocument
+	 * @param parent    ObjectDocument
+	 * @param documents List
+	 * @param names     List
+	 */
+	public List<ObjectDocument> createObjects(ObjectDocument type, ObjectDocument parent,
+			List<ObjectDocument> documents, List<String> names) throws Exception {
+		if (documents.size() != names.size()) {
+			throw new IllegalArgumentException("documents and names must have the same size");
+		}
+		if (documents.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		checkNames(parent, names);
+
+		ObjectDocument objects = readDocument("system/objects");
+
+		List<ObjectDocument> created;
+		if (storage.hasGraphCreate()) {
+			for (ObjectDocument document : documents) {
+				document.stampType(type.getId());
+			}
+			created = createGraph(type, objects, parent, documents, names);
+			for (ObjectDocument document : created) {
+				typeIds.put(document.getId(), type.getId());
+			}
+		} else {
+			created = insertObjects(type, objects, parent, documents, names);
+		}
+
+		LOG.debug("created " + created.size() + " objects of " + type.getId());
+
+		return created;
+	}
+
+	public List<ObjectDocument> createObjects(Context context, ObjectDocument type, ObjectDocument parent,
+			List<ObjectDocument> documents, List<String> names) throws Exception {
+		List<ObjectDocument> created = createObjects(type, parent, documents, names);
+
+		for (ObjectDocument document : created) {
+			Functions.FunctionContext pbFunctionContext = ObjectTrigger.Trigger(document.getId(), Core.Method.CREATE);
+
+			TypedValue typedValue = TypedValueDeserializer.fromMessageLite(pbFunctionContext);
+
+			context.send(ObjectTrigger.FUNCTION_TYPE, document.getId(), typedValue);
+		}
+
+		return created;
+	}
+
+	// parallel objects, created ones are removed again if any insert fails
+	private List<ObjectDocument> insertObjects(ObjectDocument type, ObjectDocument objects, ObjectDocument parent,
+			List<ObjectDocument> documents, List<String> names) throws Exception {
+		List<CompletableFuture<ObjectDocument>> futures = new ArrayList<>();
+		for (int i = 0; i < documents.size(); i++) {
+			ObjectDocument document = documents.get(i);
+			String name = names.get(i);
+			futures.add(async.call(() -> insertObject(type, objects, parent, document, name)));
+		}
+
+		try {
+			join(futures);
+		} catch (Exception e) {
+			for (CompletableFuture<ObjectDocument> future : futures) {
+				if (future.isCompletedExceptionally()) {
+					continue;
+				}
+				ObjectDocument document = future.get();
+				try {
+					removeDocument(document);
+				} catch (Exception remove) {
+					LOG.error("rollback " + document.getId() + ": " + remove.getLocalizedMessage());
+				}
+			}
+			throw e;
+		}
+
+		List<ObjectDocument> created = new ArrayList<>(futures.size());
+		for (CompletableFuture<ObjectDocument> future : futures) {
+			created.add(future.get());
+		}
+		return created;
+	}
+
+	// object with fresh key and its links, only link from parent can be
+	// duplicated (checked by caller)
+	private ObjectDocument insertObject(ObjectDocument type, ObjectDocument objects, ObjectDocument parent,
+			ObjectDocument document, String name) throws Exception {
+		document.stampType(type.getId());
+
+		if (storage.hasGraphCreate()) {
+			document = createGraph(type, objects, parent, Arrays.asList(document), Arrays.asList(name)).get(0);
+		} else if (compensatingCreate) {
+			document = insertObjectCompensating(type, objects, parent, document, name);
+		} else {
+			document = objectClient.createDocument(Collections.OBJECTS, content(document));
+
+			// link type -> object ($uuid)
+			insertLink(type, document, type.getKey(), document.getKey());
+			// link objects -> object ($uuid)
+			insertLink(objects, document, type.getKey(), document.getKey());
+			if (parent != null) {
+				// link parent -> object ($uuid), name is checked
+				insertLink(parent, document, type.getKey(), name);
+			}
+		}
+
+		typeIds.put(document.getId(), type.getId());
+
+		return document;
+	}
+
+	/**
+	 * createGraph objects and their links with one storage request, nothing is
+	 * left on failure. Keys are generated here, so edges are known before insert
+	 **
+	 * @param type      ObjectDocument
+	 * @param objects   ObjectDocument
+	 * @param parent    ObjectDocument
+	 * @param documents List
+	 * @param names     List
+	 */
+	private List<ObjectDocument> createGraph(ObjectDocument type, ObjectDocument objects, ObjectDocument parent,
+			List<ObjectDocument> documents, List<String> names) throws Exception {
+		List<ByteString> vertices = new ArrayList<>(documents.size());
+		List<LinkDocument> links = new ArrayList<>();
+		for (int i = 0; i < documents.size(); i++) {
+			ObjectDocument document = documents.get(i);
+			if (document.getKey() == null) {
+				document.setKey(UUID.randomUUID().toString());
+			}
+			String id = Collections.OBJECTS + "/" + document.getKey();
+			vertices.add(content(document));
+
+			// link type -> object ($uuid)
+			links.add(new LinkDocument(type.getId(), id, type.getKey(), document.getKey()));
+			// link objects -> object ($uuid)
+			links.add(new LinkDocument(objects.getId(), id, type.getKey(), document.getKey()));
+			if (parent != null) {
+				// link parent -> object ($uuid)
+				links.add(new LinkDocument(parent.getId(), id, type.getKey(), names.get(i)));
+			}
+		}
+
+		List<ByteString> edges = new ArrayList<>(links.size());
+		for (LinkDocument link : links) {
+			edges.add(content(link));
+			forget(link);
+		}
+
+		List<Core.Response> responses;
+		try {
+			responses = limiter.call(() -> storage.createGraph(Collections.OBJECTS, vertices, Collections.LINKS, edges));
+		} catch (Exception e) {
+			if (parent != null && isUniqueViolation(e)) {
+				throw new AlreadyLinkException(parent.getId(), String.join(", ", names));
+			}
+			throw e;
+		} finally {
+			// links are visible from now
+			for (LinkDocument link : links) {
+				forget(link);
+			}
+		}
+
+		List<ObjectDocument> created = new ArrayList<>(documents.size());
+		for (int i = 0; i < documents.size(); i++) {
+			created.add(ObjectDocument.lazy(responses.get(i).getPayload()));
+		}
+		return created;
+	}
+
+	// parallel edges, vertex and edges are removed again if any insert fails.
+	// Not atomic: others may see partial object and removal may fail too
+	private ObjectDocument insertObjectCompensating(ObjectDocument type, ObjectDocument objects,
+			ObjectDocument parent, ObjectDocument document, String name) throws Exception {
+		ObjectDocument created = objectClient.createDocument(Collections.OBJECTS, content(document));
+
+		List<Callable<LinkDocument>> edges = new ArrayList<>();
+		// link type -> object ($uuid)
+		edges.add(() -> insertLink(type, created, type.getKey(), created.getKey()));
+		// link objects -> object ($uuid)
+		edges.add(() -> insertLink(objects, created, type.getKey(), created.getKey()));
+		if (parent != null) {
+			// link parent -> object ($uuid)
+			edges.add(() -> insertLink(parent, created, type.getKey(), name));
+		}
+
+		List<CompletableFuture<LinkDocument>> links = new ArrayList<>();
+		for (Callable<LinkDocument> edge : edges) {
+			links.add(async.call(edge));
+		}
+
+		try {
+			join(links);
+		} catch (Exception e) {
+			rollback(created, links);
+			throw e;
+		}
+
+		return created;
+	}
+
+	// best effort, original failure is reported
+	private void rollback(ObjectDocument document, List<CompletableFuture<LinkDocument>> links) {
+		for (CompletableFuture<LinkDocument> link : links) {
+			try {
+				if (!link.isCompletedExceptionally()) {
+					removeLinkDocument(link.get());
+				}
+			} catch (Exception e) {
+				LOG.error("rollback " + document.getId() + ": " + e.getLocalizedMessage());
+			}
+		}
+		try {
+			objectClient.removeDocument(document.getId());
+		} catch (Exception e) {
+			LOG.error("rollback " + document.getId() + ": " + e.getLocalizedMessage());
+		}
+		LOG.debug("rolled back " + document.getId());
+	}
+
+	private static <T> void join(List<CompletableFuture<T>> futures) throws Exception {
+		Exception failure = null;
+		for (CompletableFuture<T> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				if (failure == null) {
+					failure = cause(e);
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	private static Exception cause(ExecutionException e) {
+		if (e.getCause() instanceof Exception) {
+			return (Exception) e.getCause();
+		}
+		return e;
+	}
+
 	public ObjectDocument updateObject(Context context, ObjectDocument document) throws Exception {
 		document = updateDocument(document);
 		Functions.FunctionContext pbFunctionContext = ObjectTrigger.Trigger(document.getId(), Core.Method.UPDATE);
@@ -266,6 +793,47 @@ public class Cmdb {
 		return document;
 	}
 
+	/**
+	 * updateObject skips write and triggers if stored content already has the
+	 * incoming values
+	 **
+	 * @param context  Context
+	 * @param current  stored document
+	 * @param document incoming document
+	 */
+	public ObjectDocument updateObject(Context context, ObjectDocument current, ObjectDocument document)
+			throws Exception {
+		String hash = DocumentCodec.fingerprint(DocumentPatch.merge(current.getProperties(), document.getProperties()));
+		if (hash.equals(current.fingerprint())) {
+			LOG.debug("unchanged " + current.getId());
+			return current;
+		}
+		// hash of merged content
+		document.getMeta().setHash(hash);
+		return updateObject(context, document);
+	}
+
+	/**
+	 * replaceObject skips write and triggers if stored content is the same
+	 **
+	 * @param context  Context
+	 * @param current  stored document
+	 * @param document incoming document
+	 */
+	public ObjectDocument replaceObject(Context context, ObjectDocument current, ObjectDocument document)
+			throws Exception {
+		// keep stamped type
+		if (current.getMeta().getTypeId() != null) {
+			document.stampType(current.getMeta().getTypeId());
+		}
+
+		if (document.fingerprint().equals(current.fingerprint())) {
+			LOG.debug("unchanged " + current.getId());
+			return current;
+		}
+		return replaceObject(context, document);
+	}
+
 	public void removeObject(Context context, ObjectDocument document) throws Exception {
 		removeDocument(document);
 		// move trigger to link type -> objects
@@ -282,11 +850,16 @@ public class Cmdb {
 	public LinkDocument createLink(ObjectDocument parent, ObjectDocument document, String type, String name)
 			throws Exception {
 
-		checkFrom(parent, name);
+		checkName(parent, name);
+
+		return insertLink(parent, document, type, name);
+	}
 
+	private LinkDocument insertLink(ObjectDocument parent, ObjectDocument document, String type, String name)
+			throws Exception {
 		LinkDocument link = new LinkDocument(parent.getId(), document.getId(), type, name);
 
-		link = linkClient.createDocument(Collections.LINKS, link.serialize());
+		link = createLinkDocument(link);
 
 		LOG.debug("created link" + link.getId());
 
@@ -296,12 +869,12 @@ public class Cmdb {
 	public LinkDocument createLink(ObjectDocument parent, ObjectDocument document, String type, String name,
 			ByteString payload) throws Exception {
 
-		checkFrom(parent, name);
+		checkName(parent, name);
 
 		LinkDocument link = new LinkDocument(parent.getId(), document.getId(), type, name);
 		link.replaceProperties(payload);
 
-		link = linkClient.createDocument(Collections.LINKS, link.serialize());
+		link = createLinkDocument(link);
 
 		LOG.debug("created link" + link.getId());
 
@@ -336,12 +909,182 @@ public class Cmdb {
 		return document;
 	}
 
+	/**
+	 * updateLink skips write and triggers if stored content already has the
+	 * incoming values
+	 **
+	 * @param context  Context
+	 * @param current  stored link
+	 * @param document incoming link
+	 */
+	public LinkDocument updateLink(Context context, LinkDocument current, LinkDocument document) throws Exception {
+		// link fields not in update stay as stored
+		LinkDocument merged = new LinkDocument(orElse(document.getFrom(), current.getFrom()),
+				orElse(document.getTo(), current.getTo()), orElse(document.getType(), current.getType()),
+				orElse(document.getName(), current.getName()));
+		merged.setProperties(DocumentPatch.merge(current.getProperties(), document.getProperties()));
+
+		String hash = merged.fingerprint();
+		if (hash.equals(current.fingerprint())) {
+			LOG.debug("unchanged " + current.getId());
+			return current;
+		}
+		// hash of merged content
+		document.getMeta().setHash(hash);
+
+		// stored from, to and name may change
+		forget(current);
+		try {
+			return updateLink(context, document);
+		} finally {
+			forget(current);
+		}
+	}
+
+	/**
+	 * replaceLink skips write and triggers if stored content is the same
+	 **
+	 * @param context  Context
+	 * @param current  stored link
+	 * @param document incoming link
+	 */
+	public LinkDocument replaceLink(Context context, LinkDocument current, LinkDocument document) throws Exception {
+		if (document.fingerprint().equals(current.fingerprint())) {
+			LOG.debug("unchanged " + current.getId());
+			return current;
+		}
+
+		// stored from, to and name may change
+		forget(current);
+		try {
+			return replaceLink(context, document);
+		} finally {
+			forget(current);
+		}
+	}
+
+	private static String orElse(String value, String stored) {
+		return value == null ? stored : value;
+	}
+
+	/**
+	 * getTypeId type of loaded object, from meta if stamped
+	 **
+	 * @param document ObjectDocument
+	 */
+	public String getTypeId(ObjectDocument document) throws Exception {
+		String typeId = document.getMeta().getTypeId();
+		if (typeId != null) {
+			return typeId;
+		}
+		return getTypeId(document.getId());
+	}
+
 	public String getTypeId(String id) throws Exception {
+		String typeId = typeIds.get(id);
+		if (typeId != null) {
+			return typeId;
+		}
+
 		LinkDocument document = readLinkDocumentByTo("system/objects", id);
-		return "types/" + document.getType();
+		typeId = "types/" + document.getType();
+
+		typeIds.put(id, typeId);
+		return typeId;
+	}
+
+	/**
+	 * warmTypeIds load type id of all objects of type with one query
+	 **
+	 * @param type ObjectDocument
+	 */
+	public int warmTypeIds(ObjectDocument type) throws Exception {
+		// objects are linked from type by their key: $uuid.$type.types.root
+		QDSL.Options options = QDSL.Options.newBuilder().setId(true).build();
+		QDSL.Elements elements = qdsl("*." + type.getKey() + ".types.root", options);
+
+		for (QDSL.Element element : elements.getElementsList()) {
+			typeIds.put(element.getId(), type.getId());
+		}
+
+		LOG.debug("warmed " + elements.getElementsCount() + " objects of " + type.getId());
+
+		return elements.getElementsCount();
+	}
+
+	/**
+	 * typeObjects page of ids of objects of type ordered by id, null if storage
+	 * can't page links (see typeObjectIds)
+	 **
+	 * @param type  ObjectDocument
+	 * @param after string id of last object of previous page, empty for first
+	 * @param limit int
+	 */
+	public List<String> typeObjects(ObjectDocument type, String after, int limit) throws Exception {
+		Finder.Response resp = limiter
+				.query(() -> queryPolicy.call(() -> storage.findFromPage(type.getId(), after, limit)));
+		if (resp == null) {
+			return null;
+		}
+
+		List<String> ids = new ArrayList<>();
+		for (Finder.Link link : resp.getLinksList()) {
+			ids.add(LinkDocument.lazy(link.getPayload()).getTo());
+		}
+		return ids;
+	}
+
+	/**
+	 * typeObjectIds ids of all objects of type ordered by id, one qdsl query
+	 **
+	 * @param type ObjectDocument
+	 */
+	public List<String> typeObjectIds(ObjectDocument type) throws Exception {
+		// objects are linked from type by their key: $uuid.$type.types.root
+		QDSL.Options options = QDSL.Options.newBuilder().setId(true).build();
+		QDSL.Elements elements = qdsl("*." + type.getKey() + ".types.root", options);
+
+		List<String> ids = new ArrayList<>(elements.getElementsCount());
+		for (QDSL.Element element : elements.getElementsList()) {
+			ids.add(element.getId());
+		}
+		java.util.Collections.sort(ids);
+		return ids;
+	}
+
+	/**
+	 * backfillTypeIds stamp type to meta of objects created before stamping,
+	 * only '_meta.type' is written so 'updated' is kept
+	 **
+	 * @param type ObjectDocument
+	 * @param ids  List
+	 */
+	public int backfillTypeIds(ObjectDocument type, List<String> ids) throws Exception {
+		int count = 0;
+		for (String id : ids) {
+			ObjectDocument document = readDocument(id);
+			if (document.getMeta().getTypeId() != null) {
+				continue;
+			}
+
+			Map<String, java.lang.Object> meta = new HashMap<>();
+			meta.put(DocumentFields.TYPE_ID, type.getId());
+			Map<String, java.lang.Object> patch = new HashMap<>();
+			patch.put(DocumentFields.META, meta);
+
+			cache.invalidate(id);
+			objectClient.updateDocument(id, DocumentCodec.writeValue(patch));
+			cache.invalidate(id);
+
+			typeIds.put(id, type.getId());
+			count++;
+		}
+		return count;
 	}
 
 	public void bootstrap() throws Exception {
+		uniqueIndex();
+
 		ObjectDocument root = null;
 		try {
 			root = readDocument("system/root");
@@ -389,7 +1132,7 @@ public class Cmdb {
 
 		QDSL.Options options = QDSL.Options.newBuilder().build();
 
-		QDSL.Elements elements = qdslClient.qdsl("functions.root", options);
+		QDSL.Elements elements = qdsl("functions.root", options);
 		ObjectDocument functions = null;
 		if (elements.getElementsCount() == 0) {
 			functions = new ObjectDocument();
@@ -399,7 +1142,7 @@ public class Cmdb {
 		}
 
 		// system mountpoint
-		elements = qdslClient.qdsl("system.functions.root", options);
+		elements = qdsl("system.functions.root", options);
 		ObjectDocument system = null;
 		if (elements.getElementsCount() == 0) {
 			system = new ObjectDocument();
@@ -421,9 +1164,9 @@ public class Cmdb {
 	private ObjectDocument bootstrapFunction(ObjectDocument parentType, ObjectDocument parent, String query,
 			String name) throws Exception {
 		QDSL.Options options = QDSL.Options.newBuilder().setObject(true).build();
-		QDSL.Elements elements = qdslClient.qdsl(query, options);
+		QDSL.Elements elements = qdsl(query, options);
 		if (elements.getElementsCount() > 0) {
-			return ObjectDocument.deserialize(elements.getElements(0).getObject());
+			return ObjectDocument.lazy(elements.getElements(0).getObject());
 		}
 
 		Functions.FunctionType functionType = Functions.FunctionType.newBuilder().setType(query)
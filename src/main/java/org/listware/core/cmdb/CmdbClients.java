@@ -0,0 +1,115 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.cmdb;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.listware.core.utils.Settings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process wide pool of cmdb clients. Every Cmdb acquires a client set
+ * (round robin over 'listware.cmdb.channels' sets) instead of opening its own
+ * channels or connections (see CmdbStorage), the pool is shut down when the
+ * last reference is released or on JVM exit. Every set takes
+ * 'listware.cmdb.max-in-flight' calls (see GrpcStorage), channels take
+ * 'listware.cmdb.keepalive-ms' (see KeepaliveChannelProvider)
+ **
+ */
+public class CmdbClients {
+	@SuppressWarnings("unused")
+	private static final Logger LOG = LoggerFactory.getLogger(CmdbClients.class);
+
+	public static final String CHANNELS = "listware.cmdb.channels";
+
+	private static List<CmdbClients> pool = null;
+	private static int references = 0;
+	private static int next = 0;
+	private static boolean hooked = false;
+
+	private CmdbStorage storage = CmdbStorage.create();
+
+	private ObjectClient objectClient = new ObjectClient(storage);
+	private LinkClient linkClient = new LinkClient(storage);
+
+	private CmdbClients() {
+	}
+
+	public ObjectClient getObjectClient() {
+		return objectClient;
+	}
+
+	public LinkClient getLinkClient() {
+		return linkClient;
+	}
+
+	public CmdbStorage getStorage() {
+		return storage;
+	}
+
+	/**
+	 * acquire take reference on pool, creates it on first use
+	 **
+	 */
+	public static synchronized CmdbClients acquire() {
+		if (pool == null) {
+			int channels = Math.max(1, Settings.getInt(CHANNELS, 1));
+			pool = new ArrayList<>(channels);
+			for (int i = 0; i < channels; i++) {
+				pool.add(new CmdbClients());
+			}
+			LOG.info("cmdb clients: " + channels + " channel sets");
+
+			if (!hooked) {
+				Runtime.getRuntime().addShutdownHook(new Thread(CmdbClients::shutdown, "cmdb-clients-shutdown"));
+				hooked = true;
+			}
+		}
+
+		references++;
+
+		CmdbClients clients = pool.get(next);
+		next = (next + 1) % pool.size();
+		return clients;
+	}
+
+	/**
+	 * release drop reference on pool, last one shuts it down
+	 **
+	 */
+	public static synchronized void release() {
+		if (references == 0) {
+			return;
+		}
+
+		references--;
+
+		if (references == 0) {
+			shutdown();
+		}
+	}
+
+	private static synchronized void shutdown() {
+		if (pool == null) {
+			return;
+		}
+
+		for (CmdbClients clients : pool) {
+			try {
+				clients.storage.shutdown();
+			} catch (InterruptedException e) {
+				LOG.error(e.getLocalizedMessage());
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		pool = null;
+		references = 0;
+		next = 0;
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.cmdb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.listware.core.utils.Settings;
+import org.listware.sdk.pbcmdb.Core;
+import org.listware.sdk.pbcmdb.pbfinder.Finder;
+import org.listware.sdk.pbcmdb.pbqdsl.QDSL;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * Storage of cmdb documents. Backend is chosen by 'listware.cmdb.storage':
+ * 'grpc' (cmdb services, default) or 'arangodb' (direct driver connection for
+ * co-located deployments). Missing documents are returned as empty payload
+ **
+ */
+public interface CmdbStorage {
+	public static final String STORAGE = "listware.cmdb.storage";
+
+	public static final String GRPC = "grpc";
+	public static final String ARANGODB = "arangodb";
+
+	/**
+	 * create storage configured by 'listware.cmdb.storage'
+	 **
+	 */
+	public static CmdbStorage create() {
+		String storage = Settings.getString(STORAGE, GRPC);
+		if (ARANGODB.equalsIgnoreCase(storage)) {
+			return new ArangoStorage();
+		}
+		return new GrpcStorage();
+	}
+
+	public Core.Response createVertex(String collection, ByteString payload) throws Exception;
+
+	public Core.Response readVertex(String collection, String key) throws Exception;
+
+	/**
+	 * readVertexIfModified read vertex unless its revision is still rev,
+	 * unchanged vertex is null. Without conditional reads vertex is read
+	 **
+	 * @param collection string
+	 * @param key        string
+	 * @param rev        string
+	 */
+	public default Core.Response readVertexIfModified(String collection, String key, String rev) throws Exception {
+		return readVertex(collection, key);
+	}
+
+	/**
+	 * hasConditionalReads readVertexIfModified checks revision without reading
+	 * unchanged vertex
+	 **
+	 */
+	public default boolean hasConditionalReads() {
+		return false;
+	}
+
+	/**
+	 * hasMultiGet readVertices reads vertices with one request
+	 **
+	 */
+	public default boolean hasMultiGet() {
+		return false;
+	}
+
+	/**
+	 * readVertices read vertices with one request where storage supports it,
+	 * responses are in order of keys, missing vertex is empty payload
+	 **
+	 * @param collection string
+	 * @param keys       List
+	 */
+	public default List<Core.Response> readVertices(String collection, List<String> keys) throws Exception {
+		List<Core.Response> responses = new ArrayList<>(keys.size());
+		for (String key : keys) {
+			responses.add(readVertex(collection, key));
+		}
+		return responses;
+	}
+
+	public Core.Response updateVertex(String collection, String key, ByteString payload) throws Exception;
+
+	public Core.Response replaceVertex(String collection, String key, ByteString payload) throws Exception;
+
+	public void removeVertex(String collection, String key) throws Exception;
+
+	public Core.Response createEdge(String collection, ByteString payload) throws Exception;
+
+	public Core.Response readEdge(String collection, String key) throws Exception;
+
+	public Core.Response updateEdge(String collection, String key, ByteString payload) throws Exception;
+
+	public Core.Response replaceEdge(String collection, String key, ByteString payload) throws Exception;
+
+	public void removeEdge(String collection, String key) throws Exception;
+
+	/**
+	 * findFrom links from object with name
+	 **
+	 * @param from string
+	 * @param name string
+	 */
+	public Finder.Response findFrom(String from, String name) throws Exception;
+
+	/**
+	 * findFromNames links from object with any of names, with one request where
+	 * storage supports it
+	 **
+	 * @param from  string
+	 * @param names Collection
+	 */
+	public default Finder.Response findFromNames(String from, Collection<String> names) throws Exception {
+		Finder.Response.Builder builder = Finder.Response.newBuilder();
+		for (String name : names) {
+			builder.addAllLinks(findFrom(from, name).getLinksList());
+		}
+		return builder.build();
+	}
+
+	/**
+	 * findFromTo links between objects
+	 **
+	 * @param from string
+	 * @param to   string
+	 */
+	public Finder.Response findFromTo(String from, String to) throws Exception;
+
+	/**
+	 * findFromPage links from object ordered by '_to', null if storage can't
+	 * page links
+	 **
+	 * @param from  string
+	 * @param after string '_to' of last link of previous page, empty for first
+	 * @param limit int
+	 */
+	public default Finder.Response findFromPage(String from, String after, int limit) throws Exception {
+		return null;
+	}
+
+	/**
+	 * qdsl query
+	 **
+	 * @param query   string
+	 * @param options QDSL.Options
+	 */
+	public QDSL.Elements qdsl(String query, QDSL.Options options) throws Exception;
+
+	/**
+	 * ensureUniqueIndex create unique index on fields if missing, false if
+	 * storage can't manage indexes
+	 **
+	 * @param collection string
+	 * @param fields     string
+	 */
+	public default boolean ensureUniqueIndex(String collection, String... fields) throws Exception {
+		return false;
+	}
+
+	/**
+	 * hasGraphCreate createGraph writes vertices and edges with one request
+	 **
+	 */
+	public default boolean hasGraphCreate() {
+		return false;
+	}
+
+	/**
+	 * createGraph insert vertices and edges with one request, all or nothing.
+	 * Vertices carry their '_key', edges their '_from' and '_to'. Responses are
+	 * created vertices, then created edges, in order
+	 **
+	 * @param vertexCollection string
+	 * @param vertices         List
+	 * @param edgeCollection   string
+	 * @param edges            List
+	 */
+	public default List<Core.Response> createGraph(String vertexCollection, List<ByteString> vertices,
+			String edgeCollection, List<ByteString> edges) throws Exception {
+		throw new UnsupportedOperationException("storage can't create graph with one request");
+	}
+
+	public void shutdown() throws InterruptedException;
+}
@@ -0,0 +1,195 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.cmdb;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.listware.core.utils.Gauges;
+import org.listware.core.utils.Settings;
+import org.listware.core.utils.exceptions.DeadlineExceededException;
+import org.listware.core.utils.exceptions.LimitExceededException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.grpc.Status;
+
+/**
+ * Adaptive (AIMD) in-flight limit for cmdb calls, off unless
+ * 'listware.cmdb.limit.enabled'. Limit grows by one per window of successful
+ * calls while it is used, and is cut when the server reports overload (grpc
+ * status), the call policy deadline passes or a point call is slower than
+ * 'listware.cmdb.limit.latency-ms'.
+ * Queries take as long as their result is large, their latency is not a
+ * signal. Calls over the limit wait in a bounded queue, then are rejected.
+ * State is exported as gauges 'cmdb-limiter'
+ **
+ */
+public class ConcurrencyLimiter {
+	@SuppressWarnings("unused")
+	private static final Logger LOG = LoggerFactory.getLogger(ConcurrencyLimiter.class);
+
+	public static final String ENABLED = "listware.cmdb.limit.enabled";
+	public static final String INITIAL = "listware.cmdb.limit.initial";
+	public static final String MIN = "listware.cmdb.limit.min";
+	public static final String MAX = "listware.cmdb.limit.max";
+	public static final String LATENCY = "listware.cmdb.limit.latency-ms";
+	public static final String MAX_QUEUE = "listware.cmdb.limit.max-queue";
+	public static final String MAX_WAIT = "listware.cmdb.limit.max-wait-ms";
+
+	private static final double BACKOFF = 0.9;
+
+	// grpc status codes of overloaded server
+	private static final Set<Status.Code> OVERLOAD = EnumSet.of(Status.Code.DEADLINE_EXCEEDED,
+			Status.Code.UNAVAILABLE, Status.Code.RESOURCE_EXHAUSTED);
+
+	private static ConcurrencyLimiter instance = null;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+
+	private final boolean enabled;
+	private final int min;
+	private final int max;
+	private final long latency;
+	private final int maxQueue;
+	private final long maxWait;
+
+	// written under lock, read by gauges
+	private volatile double limit;
+	private volatile int inFlight = 0;
+	private volatile int waiting = 0;
+	private volatile long rejected = 0;
+
+	private ConcurrencyLimiter() {
+		enabled = Settings.getBoolean(ENABLED, false);
+		min = Settings.getInt(MIN, 4);
+		max = Settings.getInt(MAX, 256);
+		limit = Settings.getInt(INITIAL, 32);
+		latency = TimeUnit.MILLISECONDS.toNanos(Settings.getLong(LATENCY, 500));
+		maxQueue = Settings.getInt(MAX_QUEUE, 1000);
+		maxWait = TimeUnit.MILLISECONDS.toNanos(Settings.getLong(MAX_WAIT, 1000));
+
+		Gauges.register("cmdb-limiter").gauge("limit", this::getLimit).gauge("in-flight", this::getInFlight)
+				.gauge("queue-depth", this::getQueueDepth).gauge("rejected", this::getRejected);
+	}
+
+	public static synchronized ConcurrencyLimiter getInstance() {
+		if (instance == null) {
+			instance = new ConcurrencyLimiter();
+		}
+		return instance;
+	}
+
+	/**
+	 * call run cmdb point call (read or write of one document) within limit
+	 **
+	 * @param callable Callable
+	 */
+	public <T> T call(Callable<T> callable) throws Exception {
+		return call(callable, true);
+	}
+
+	/**
+	 * query run cmdb query (qdsl, multi-get) within limit, its latency does
+	 * not cut the limit
+	 **
+	 * @param callable Callable
+	 */
+	public <T> T query(Callable<T> callable) throws Exception {
+		return call(callable, false);
+	}
+
+	private <T> T call(Callable<T> callable, boolean timed) throws Exception {
+		if (!enabled) {
+			return callable.call();
+		}
+
+		acquire();
+
+		long start = System.nanoTime();
+		boolean overload = false;
+		try {
+			return callable.call();
+		} catch (Exception e) {
+			overload = isOverload(e);
+			throw e;
+		} finally {
+			release(overload || (timed && System.nanoTime() - start > latency));
+		}
+	}
+
+	private void acquire() throws Exception {
+		lock.lock();
+		try {
+			if (inFlight >= (int) limit) {
+				if (waiting >= maxQueue) {
+					rejected++;
+					throw new LimitExceededException((int) limit);
+				}
+
+				waiting++;
+				try {
+					long nanos = maxWait;
+					while (inFlight >= (int) limit) {
+						if (nanos <= 0) {
+							rejected++;
+							throw new LimitExceededException((int) limit);
+						}
+						nanos = available.awaitNanos(nanos);
+					}
+				} finally {
+					waiting--;
+				}
+			}
+			inFlight++;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void release(boolean drop) {
+		lock.lock();
+		try {
+			if (drop) {
+				limit = Math.max(min, limit * BACKOFF);
+				LOG.debug("cmdb limit down to " + (int) limit);
+			} else if (inFlight * 2 >= limit) {
+				// additive increase only while limit is actually used
+				limit = Math.min(max, limit + 1 / limit);
+			}
+			inFlight--;
+			available.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// status is looked up in cause chain, policy deadline is the same as grpc one
+	static boolean isOverload(Throwable e) {
+		return e instanceof DeadlineExceededException || OVERLOAD.contains(Status.fromThrowable(e).getCode());
+	}
+
+	public int getLimit() {
+		return (int) limit;
+	}
+
+	public int getInFlight() {
+		return inFlight;
+	}
+
+	public int getQueueDepth() {
+		return waiting;
+	}
+
+	public long getRejected() {
+		return rejected;
+	}
+}
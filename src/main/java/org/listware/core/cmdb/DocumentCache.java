@@ -0,0 +1,203 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.cmdb;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.listware.core.documents.DocumentCodec;
+import org.listware.core.documents.entity.DocumentFields;
+import org.listware.core.utils.Gauges;
+import org.listware.core.utils.Settings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.protobuf.ByteString;
+
+/**
+ * Process wide cache of raw document payloads for rarely changing
+ * collections (system, types), bounded by payload bytes. Where storage has
+ * conditional reads every hit is validated by '_rev' (see
+ * CmdbStorage.readVertexIfModified), so writes made by other workers are seen
+ * on next read. Otherwise validation would be full read, hit is served
+ * unvalidated for 'listware.cmdb.cache.ttl-ms' after it was read, writes of
+ * other workers are seen after it. Hits, stale hits, misses and evictions are
+ * exported as gauges 'DocumentCache'
+ **
+ */
+public class DocumentCache {
+	@SuppressWarnings("unused")
+	private static final Logger LOG = LoggerFactory.getLogger(DocumentCache.class);
+
+	public static final String COLLECTIONS = "listware.cmdb.cache.collections";
+	public static final String MAX_BYTES = "listware.cmdb.cache.max-bytes";
+	public static final String TTL = "listware.cmdb.cache.ttl-ms";
+
+	private static DocumentCache instance = null;
+
+	private Set<String> collections;
+	private Cache<String, Entry> payloads;
+
+	// age of entry served without validation, nanos
+	private long ttl;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder stale = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Loader of document payload
+	 **
+	 */
+	public interface Loader {
+		/**
+		 * load payload, null if document revision is still rev
+		 **
+		 * @param rev string (null - read always)
+		 */
+		public ByteString load(String rev) throws Exception;
+	}
+
+	private static class Entry {
+		private final ByteString payload;
+		private final String rev;
+		private final long loaded = System.nanoTime();
+
+		Entry(ByteString payload, String rev) {
+			this.payload = payload;
+			this.rev = rev;
+		}
+	}
+
+	DocumentCache(long ttl) {
+		this.ttl = TimeUnit.MILLISECONDS.toNanos(ttl);
+
+		collections = new HashSet<>(
+				Arrays.asList(Settings.getString(COLLECTIONS, Cmdb.Collections.SYSTEM + "," + Cmdb.Collections.TYPES)
+						.split(",")));
+
+		payloads = CacheBuilder.newBuilder().maximumWeight(Settings.getLong(MAX_BYTES, 64L * 1024 * 1024))
+				.<String, Entry>weigher((id, entry) -> id.length() + entry.payload.size())
+				.<String, Entry>removalListener(notification -> {
+					if (notification.getCause() == RemovalCause.SIZE) {
+						LOG.debug("evicted " + notification.getKey());
+					}
+				}).recordStats().build();
+	}
+
+	public static synchronized DocumentCache getInstance() {
+		if (instance == null) {
+			instance = new DocumentCache(Settings.getLong(TTL, 5000));
+
+			Gauges.register("DocumentCache").gauge("hits", instance.hits::sum).gauge("stale", instance.stale::sum)
+					.gauge("misses", instance.misses::sum).gauge("evictions", instance::getEvictions)
+					.gauge("size", instance::size);
+		}
+		return instance;
+	}
+
+	/**
+	 * isCached document id belongs to cached collection
+	 **
+	 * @param id string
+	 */
+	public boolean isCached(String id) {
+		int index = id.indexOf('/');
+		return index > 0 && collections.contains(id.substring(0, index));
+	}
+
+	/**
+	 * get payload of id, cached payload is returned only while its revision is
+	 * current, or within ttl without conditional reads
+	 **
+	 * @param id          string
+	 * @param conditional loader skips unchanged document without reading it
+	 * @param loader      Loader
+	 */
+	public ByteString get(String id, boolean conditional, Loader loader) throws Exception {
+		if (!isCached(id)) {
+			return loader.load(null);
+		}
+
+		Entry entry = payloads.getIfPresent(id);
+		if (entry == null) {
+			misses.increment();
+			return load(id, loader.load(null));
+		}
+
+		if (!conditional && System.nanoTime() - entry.loaded < ttl) {
+			hits.increment();
+			return entry.payload;
+		}
+
+		ByteString payload = loader.load(conditional ? entry.rev : null);
+		if (payload == null) {
+			hits.increment();
+			return entry.payload;
+		}
+		// full read of same revision starts ttl again
+		if (Objects.equals(entry.rev, revision(payload))) {
+			hits.increment();
+			payloads.put(id, new Entry(entry.payload, entry.rev));
+			return entry.payload;
+		}
+
+		stale.increment();
+		return load(id, payload);
+	}
+
+	private ByteString load(String id, ByteString payload) throws Exception {
+		String rev = revision(payload);
+		if (rev != null) {
+			payloads.put(id, new Entry(payload, rev));
+		}
+		return payload;
+	}
+
+	private static String revision(ByteString payload) throws Exception {
+		if (payload.isEmpty()) {
+			return null;
+		}
+		Object rev = DocumentCodec.scan(payload).get(DocumentFields.REV);
+		return rev == null ? null : rev.toString();
+	}
+
+	/**
+	 * invalidate evict id
+	 **
+	 * @param id string
+	 */
+	public void invalidate(String id) {
+		payloads.invalidate(id);
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getStale() {
+		return stale.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getEvictions() {
+		return payloads.stats().evictionCount();
+	}
+
+	public long size() {
+		return payloads.size();
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.cmdb;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+
+import org.listware.core.utils.Settings;
+import org.listware.core.utils.exceptions.UniqueViolationException;
+import org.listware.io.grpc.EdgeClient;
+import org.listware.io.grpc.FinderClient;
+import org.listware.io.grpc.QDSLClient;
+import org.listware.io.grpc.VertexClient;
+import org.listware.sdk.pbcmdb.Core;
+import org.listware.sdk.pbcmdb.pbfinder.Finder;
+import org.listware.sdk.pbcmdb.pbqdsl.QDSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.protobuf.ByteString;
+
+import io.grpc.Status;
+
+/**
+ * Storage over cmdb gRPC services (one channel set). Calls in flight on the
+ * set are limited by 'listware.cmdb.max-in-flight' (0 - unlimited), idle set
+ * is kept open by transport keepalive of KeepaliveChannelProvider
+ **
+ */
+public class GrpcStorage implements CmdbStorage {
+	@SuppressWarnings("unused")
+	private static final Logger LOG = LoggerFactory.getLogger(GrpcStorage.class);
+
+	public static final String MAX_IN_FLIGHT = "listware.cmdb.max-in-flight";
+
+	private VertexClient vertexClient = new VertexClient();
+	private EdgeClient edgeClient = new EdgeClient();
+	private FinderClient finderClient = new FinderClient();
+	private QDSLClient qdslClient = new QDSLClient();
+
+	private Semaphore inFlight = null;
+
+	public GrpcStorage() {
+		int maxInFlight = Settings.getInt(MAX_IN_FLIGHT, 0);
+		if (maxInFlight > 0) {
+			inFlight = new Semaphore(maxInFlight);
+		}
+	}
+
+	@Override
+	public Core.Response createVertex(String collection, ByteString payload) throws Exception {
+		return write(collection, () -> vertexClient.create(collection, payload));
+	}
+
+	@Override
+	public Core.Response readVertex(String collection, String key) throws Exception {
+		return call(() -> vertexClient.read(collection, key));
+	}
+
+	@Override
+	public Core.Response updateVertex(String collection, String key, ByteString payload) throws Exception {
+		return write(collection, () -> vertexClient.update(collection, key, payload));
+	}
+
+	@Override
+	public Core.Response replaceVertex(String collection, String key, ByteString payload) throws Exception {
+		return write(collection, () -> vertexClient.replace(collection, key, payload));
+	}
+
+	@Override
+	public void removeVertex(String collection, String key) throws Exception {
+		call(() -> {
+			vertexClient.remove(collection, key);
+			return null;
+		});
+	}
+
+	@Override
+	public Core.Response createEdge(String collection, ByteString payload) throws Exception {
+		return write(collection, () -> edgeClient.create(collection, payload));
+	}
+
+	@Override
+	public Core.Response readEdge(String collection, String key) throws Exception {
+		return call(() -> edgeClient.read(collection, key));
+	}
+
+	@Override
+	public Core.Response updateEdge(String collection, String key, ByteString payload) throws Exception {
+		return write(collection, () -> edgeClient.update(collection, key, payload));
+	}
+
+	@Override
+	public Core.Response replaceEdge(String collection, String key, ByteString payload) throws Exception {
+		return write(collection, () -> edgeClient.replace(collection, key, payload));
+	}
+
+	@Override
+	public void removeEdge(String collection, String key) throws Exception {
+		call(() -> {
+			edgeClient.remove(collection, key);
+			return null;
+		});
+	}
+
+	@Override
+	public Finder.Response findFrom(String from, String name) throws Exception {
+		return call(() -> finderClient.findFrom(from, name));
+	}
+
+	@Override
+	public Finder.Response findFromTo(String from, String to) throws Exception {
+		return call(() -> finderClient.findFromTo(from, to));
+	}
+
+	@Override
+	public QDSL.Elements qdsl(String query, QDSL.Options options) throws Exception {
+		return call(() -> qdslClient.qdsl(query, options));
+	}
+
+	@Override
+	public void shutdown() throws InterruptedException {
+		vertexClient.shutdown();
+		edgeClient.shutdown();
+		finderClient.shutdown();
+		qdslClient.shutdown();
+	}
+
+	private <T> T call(Callable<T> callable) throws Exception {
+		if (inFlight != null) {
+			inFlight.acquire();
+		}
+		try {
+			return callable.call();
+		} finally {
+			if (inFlight != null) {
+				inFlight.release();
+			}
+		}
+	}
+
+	// cmdb reports violated unique index as ALREADY_EXISTS
+	private <T> T write(String collection, Callable<T> callable) throws Exception {
+		try {
+			return call(callable);
+		} catch (Exception e) {
+			if (Status.fromThrowable(e).getCode() == Status.Code.ALREADY_EXISTS) {
+				throw new UniqueViolationException(collection, e);
+			}
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.cmdb;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.listware.core.utils.Settings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.auto.service.AutoService;
+
+import io.grpc.ChannelCredentials;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.ManagedChannelProvider;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelProvider;
+
+/**
+ * Netty channel provider with transport keepalive. Cmdb io clients build
+ * their own channels, provider ahead of default netty one sends http/2 pings
+ * every 'listware.cmdb.keepalive-ms' (0 - off, netty takes 10 s at least) on
+ * idle channels too, so connections of idle channel sets stay open without
+ * calls to cmdb. Applies to every channel of the process
+ **
+ */
+@AutoService(ManagedChannelProvider.class)
+public class KeepaliveChannelProvider extends ManagedChannelProvider {
+	@SuppressWarnings("unused")
+	private static final Logger LOG = LoggerFactory.getLogger(KeepaliveChannelProvider.class);
+
+	public static final String KEEPALIVE = "listware.cmdb.keepalive-ms";
+
+	private final NettyChannelProvider netty = new NettyChannelProvider();
+
+	@Override
+	protected boolean isAvailable() {
+		return netty.isAvailable() && keepalive() > 0;
+	}
+
+	// ahead of netty provider
+	@Override
+	protected int priority() {
+		return netty.priority() + 1;
+	}
+
+	@Override
+	protected ManagedChannelBuilder<?> builderForAddress(String name, int port) {
+		return keepalive(NettyChannelBuilder.forAddress(name, port));
+	}
+
+	@Override
+	protected ManagedChannelBuilder<?> builderForTarget(String target) {
+		return keepalive(NettyChannelBuilder.forTarget(target));
+	}
+
+	@Override
+	protected NewChannelBuilderResult newChannelBuilder(String target, ChannelCredentials credentials) {
+		NewChannelBuilderResult result = netty.newChannelBuilder(target, credentials);
+		if (result.getChannelBuilder() instanceof NettyChannelBuilder) {
+			keepalive((NettyChannelBuilder) result.getChannelBuilder());
+		}
+		return result;
+	}
+
+	@Override
+	protected Collection<Class<? extends SocketAddress>> getSupportedSocketAddressTypes() {
+		return Collections.singleton(InetSocketAddress.class);
+	}
+
+	private static NettyChannelBuilder keepalive(NettyChannelBuilder builder) {
+		return builder.keepAliveTime(keepalive(), TimeUnit.MILLISECONDS).keepAliveWithoutCalls(true);
+	}
+
+	private static long keepalive() {
+		return Settings.getLong(KEEPALIVE, 0);
+	}
+}
@@ -5,51 +5,85 @@
 
 package org.listware.core.cmdb;
 
+import java.util.concurrent.Callable;
+
 import org.listware.core.documents.LinkDocument;
 import org.listware.core.utils.exceptions.PayloadNotFoundException;
 import org.listware.core.utils.exceptions.UnknownIdException;
-import org.listware.io.grpc.EdgeClient;
 import org.listware.sdk.pbcmdb.Core;
 
 import com.google.protobuf.ByteString;
 
-public class LinkClient extends EdgeClient {
+public class LinkClient {
+	// concurrent reads of one id share the response
+	private static final SingleFlight<String, Core.Response> reads = new SingleFlight<>();
+
+	private static final ConcurrencyLimiter limiter = ConcurrencyLimiter.getInstance();
+
+	private static final CallPolicy readPolicy = CallPolicy.of(CallPolicy.READ);
+	private static final CallPolicy writePolicy = CallPolicy.of(CallPolicy.WRITE);
+
+	private CmdbStorage storage;
+
+	public LinkClient(CmdbStorage storage) {
+		this.storage = storage;
+	}
 
 	public LinkDocument createDocument(String collection, ByteString payload) throws Exception {
-		Core.Response resp = create(collection, payload);
-		return LinkDocument.deserialize(resp.getPayload());
+		Core.Response resp = limiter.call(() -> writePolicy.call(() -> storage.createEdge(collection, payload)));
+		return LinkDocument.lazy(resp.getPayload());
 	}
 
 	public LinkDocument readDocument(String id) throws Exception {
 		Parser parser = new Parser(id);
-		Core.Response resp = read(parser.getCollection(), parser.getKey());
+		Core.Response resp = reads.call(id, () -> limiter
+				.call(() -> readPolicy.call(() -> storage.readEdge(parser.getCollection(), parser.getKey()))));
 		if (resp.getPayload().isEmpty()) {
 			throw new PayloadNotFoundException();
 		}
-		return LinkDocument.deserialize(resp.getPayload());
+		return LinkDocument.lazy(resp.getPayload());
 	}
 
 	public LinkDocument updateDocument(String id, ByteString payload) throws Exception {
 		Parser parser = new Parser(id);
-		Core.Response resp = update(parser.getCollection(), parser.getKey(), payload);
+		Core.Response resp = write(id, () -> storage.updateEdge(parser.getCollection(), parser.getKey(), payload));
 		if (resp.getPayload().isEmpty()) {
 			throw new PayloadNotFoundException();
 		}
-		return LinkDocument.deserialize(resp.getPayload());
+		return LinkDocument.lazy(resp.getPayload());
 	}
 
 	public LinkDocument replaceDocument(String id, ByteString payload) throws Exception {
 		Parser parser = new Parser(id);
-		Core.Response resp = replace(parser.getCollection(), parser.getKey(), payload);
+		Core.Response resp = write(id, () -> storage.replaceEdge(parser.getCollection(), parser.getKey(), payload));
 		if (resp.getPayload().isEmpty()) {
 			throw new PayloadNotFoundException();
 		}
-		return LinkDocument.deserialize(resp.getPayload());
+		return LinkDocument.lazy(resp.getPayload());
 	}
 
 	public void removeDocument(String id) throws Exception {
 		Parser parser = new Parser(id);
-		remove(parser.getCollection(), parser.getKey());
+		write(id, () -> {
+			storage.removeEdge(parser.getCollection(), parser.getKey());
+			return null;
+		});
+	}
+
+	// reads started before the write must not be shared, nor the ones started
+	// while it runs
+	private static <T> T write(String id, Callable<T> callable) throws Exception {
+		forget(id);
+		try {
+			return limiter.call(() -> writePolicy.call(callable));
+		} finally {
+			forget(id);
+		}
+	}
+
+	// reads of id in flight
+	private static void forget(String id) {
+		reads.forget(id);
 	}
 
 	class Parser {
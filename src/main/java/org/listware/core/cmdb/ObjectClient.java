@@ -5,55 +5,134 @@
 
 package org.listware.core.cmdb;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
 import org.listware.core.documents.ObjectDocument;
 import org.listware.core.utils.exceptions.PayloadNotFoundException;
 import org.listware.core.utils.exceptions.UnknownIdException;
-import org.listware.io.grpc.VertexClient;
 import org.listware.sdk.pbcmdb.Core;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.protobuf.ByteString;
 
-public class ObjectClient extends VertexClient {
+public class ObjectClient {
 	@SuppressWarnings("unused")
 	private static final Logger LOG = LoggerFactory.getLogger(ObjectClient.class);
 
+	// concurrent reads of one id share the response
+	private static final SingleFlight<String, Core.Response> reads = new SingleFlight<>();
+
+	private static final ConcurrencyLimiter limiter = ConcurrencyLimiter.getInstance();
+
+	private static final CallPolicy readPolicy = CallPolicy.of(CallPolicy.READ);
+	private static final CallPolicy writePolicy = CallPolicy.of(CallPolicy.WRITE);
+
+	private CmdbStorage storage;
+
+	public ObjectClient(CmdbStorage storage) {
+		this.storage = storage;
+	}
+
 	public ObjectDocument createDocument(String collection, ByteString payload) throws Exception {
-		Core.Response resp = create(collection, payload);
-		return ObjectDocument.deserialize(resp.getPayload());
+		Core.Response resp = limiter.call(() -> writePolicy.call(() -> storage.createVertex(collection, payload)));
+		return ObjectDocument.lazy(resp.getPayload());
 	}
 
 	public ObjectDocument readDocument(String id) throws Exception {
+		return ObjectDocument.lazy(readPayload(id, null));
+	}
+
+	/**
+	 * readPayload raw payload of document, null if its revision is still rev
+	 **
+	 * @param id  string
+	 * @param rev string (null - read always)
+	 */
+	public ByteString readPayload(String id, String rev) throws Exception {
 		Parser parser = new Parser(id);
-		Core.Response resp = read(parser.getCollection(), parser.getKey());
+		Core.Response resp;
+		if (rev == null) {
+			resp = reads.call(id, () -> limiter
+					.call(() -> readPolicy.call(() -> storage.readVertex(parser.getCollection(), parser.getKey()))));
+		} else {
+			resp = reads.call(id + "\n" + rev, () -> limiter.call(() -> readPolicy
+					.call(() -> storage.readVertexIfModified(parser.getCollection(), parser.getKey(), rev))));
+			if (resp == null) {
+				return null;
+			}
+		}
 		if (resp.getPayload().isEmpty()) {
 			throw new PayloadNotFoundException();
 		}
-		return ObjectDocument.deserialize(resp.getPayload());
+		return resp.getPayload();
+	}
+
+	/**
+	 * readDocuments read documents of collection with one storage call,
+	 * missing documents are left out
+	 **
+	 * @param collection string
+	 * @param keys       List
+	 */
+	public Map<String, ObjectDocument> readDocuments(String collection, List<String> keys) throws Exception {
+		List<Core.Response> resps = limiter
+				.query(() -> readPolicy.call(() -> storage.readVertices(collection, keys)));
+
+		Map<String, ObjectDocument> documents = new LinkedHashMap<>();
+		for (int i = 0; i < keys.size(); i++) {
+			ByteString payload = resps.get(i).getPayload();
+			if (!payload.isEmpty()) {
+				documents.put(collection + "/" + keys.get(i), ObjectDocument.lazy(payload));
+			}
+		}
+		return documents;
 	}
 
 	public ObjectDocument updateDocument(String id, ByteString payload) throws Exception {
 		Parser parser = new Parser(id);
-		Core.Response resp = update(parser.getCollection(), parser.getKey(), payload);
+		Core.Response resp = write(id, () -> storage.updateVertex(parser.getCollection(), parser.getKey(), payload));
 		if (resp.getPayload().isEmpty()) {
 			throw new PayloadNotFoundException();
 		}
-		return ObjectDocument.deserialize(resp.getPayload());
+		return ObjectDocument.lazy(resp.getPayload());
 	}
 
 	public ObjectDocument replaceDocument(String id, ByteString payload) throws Exception {
 		Parser parser = new Parser(id);
-		Core.Response resp = replace(parser.getCollection(), parser.getKey(), payload);
+		Core.Response resp = write(id, () -> storage.replaceVertex(parser.getCollection(), parser.getKey(), payload));
 		if (resp.getPayload().isEmpty()) {
 			throw new PayloadNotFoundException();
 		}
-		return ObjectDocument.deserialize(resp.getPayload());
+		return ObjectDocument.lazy(resp.getPayload());
 	}
 
 	public void removeDocument(String id) throws Exception {
 		Parser parser = new Parser(id);
-		remove(parser.getCollection(), parser.getKey());
+		write(id, () -> {
+			storage.removeVertex(parser.getCollection(), parser.getKey());
+			return null;
+		});
+	}
+
+	// reads started before the write must not be shared, nor the ones started
+	// while it runs
+	private static <T> T write(String id, Callable<T> callable) throws Exception {
+		forget(id);
+		try {
+			return limiter.call(() -> writePolicy.call(callable));
+		} finally {
+			forget(id);
+		}
+	}
+
+	// reads of id, also conditional ones, in flight
+	private static void forget(String id) {
+		String prefix = id + "\n";
+		reads.forgetIf(key -> key.equals(id) || key.startsWith(prefix));
 	}
 
 	class Parser {
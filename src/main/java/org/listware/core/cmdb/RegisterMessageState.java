@@ -0,0 +1,45 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.cmdb;
+
+import java.util.ArrayList;
+
+import org.apache.flink.api.common.typeinfo.TypeInfo;
+import org.listware.core.utils.state.RegisterMessageSerializer;
+import org.listware.sdk.pbcmdb.Core;
+
+/**
+ * RegisterMessage kept in state with versioned serializer. RegisterMessage
+ * itself stays pojo, tables written before are read with it
+ **
+ */
+@TypeInfo(RegisterMessageSerializer.Factory.class)
+public class RegisterMessageState extends RegisterMessage {
+
+	public RegisterMessageState() {
+		// POJO
+	}
+
+	public RegisterMessageState(Core.RegisterMessage registerMessage) {
+		super(registerMessage);
+	}
+
+	/**
+	 * of message as state value, copy unless it is one
+	 **
+	 * @param registerMessage RegisterMessage
+	 */
+	public static RegisterMessageState of(RegisterMessage registerMessage) {
+		if (registerMessage instanceof RegisterMessageState) {
+			return (RegisterMessageState) registerMessage;
+		}
+		RegisterMessageState state = new RegisterMessageState();
+		state.setTypes(new ArrayList<>(registerMessage.getTypes()));
+		state.setObjects(new ArrayList<>(registerMessage.getObjects()));
+		state.setLinks(new ArrayList<>(registerMessage.getLinks()));
+		return state;
+	}
+}
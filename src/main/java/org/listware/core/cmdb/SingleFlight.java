@@ -0,0 +1,96 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.cmdb;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-flight deduplication of identical reads, concurrent calls with the same
+ * key share one outstanding call and its result. Results must be immutable
+ * (protobuf responses), nothing is kept after the call completes
+ **
+ */
+public class SingleFlight<K, V> {
+	@SuppressWarnings("unused")
+	private static final Logger LOG = LoggerFactory.getLogger(SingleFlight.class);
+
+	private final ConcurrentMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+	/**
+	 * call run loader or wait for the same call in flight
+	 **
+	 * @param key    K
+	 * @param loader Callable
+	 */
+	public V call(K key, Callable<V> loader) throws Exception {
+		CompletableFuture<V> call = new CompletableFuture<>();
+		CompletableFuture<V> inFlight = calls.putIfAbsent(key, call);
+
+		if (inFlight != null) {
+			try {
+				return inFlight.get();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof Exception) {
+					throw (Exception) e.getCause();
+				}
+				if (e.getCause() instanceof Error) {
+					throw (Error) e.getCause();
+				}
+				throw e;
+			}
+		}
+
+		// waiters are released whatever loader throws, errors too
+		try {
+			V value = loader.call();
+			call.complete(value);
+			return value;
+		} catch (Throwable t) {
+			call.completeExceptionally(t);
+			throw t;
+		} finally {
+			calls.remove(key, call);
+		}
+	}
+
+	/**
+	 * forget call in flight, later calls start a new one (key was written)
+	 **
+	 * @param key K
+	 */
+	public void forget(K key) {
+		calls.remove(key);
+	}
+
+	/**
+	 * forgetIf forget calls in flight with matching keys
+	 **
+	 * @param filter Predicate
+	 */
+	public void forgetIf(Predicate<K> filter) {
+		calls.keySet().removeIf(filter);
+	}
+
+	/**
+	 * forgetAll forget all calls in flight
+	 **
+	 */
+	public void forgetAll() {
+		calls.clear();
+	}
+
+	public int inFlight() {
+		return calls.size();
+	}
+}
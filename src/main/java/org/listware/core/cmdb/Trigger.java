@@ -9,6 +9,7 @@ import org.listware.core.documents.LinkDocument;
 import org.listware.core.documents.ObjectDocument;
 import org.listware.core.utils.exceptions.AlreadyTriggerException;
 import org.listware.core.utils.exceptions.TriggerNotFoundException;
+import org.listware.core.utils.exceptions.UnknownMethodException;
 import org.listware.sdk.pbcmdb.Core;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,6 +25,13 @@ public class Trigger {
 
 	private static String triggersKey = "triggers";
 
+	// ObjectMapper is thread safe after configuration
+	private static final ObjectMapper mapper = new ObjectMapper()
+			.configure(SerializationFeature.FAIL_ON_SELF_REFERENCES, false);
+
+	private static final TypeReference<Map<String, Map<String, Trigger>>> triggersRef = new TypeReference<Map<String, Map<String, Trigger>>>() {
+	};
+
 	public static final String CREATE = "create";
 	public static final String UPDATE = "update";
 	public static final String DELETE = "delete";
@@ -61,12 +69,33 @@ public class Trigger {
 		return type;
 	}
 
+	/**
+	 * getMethod triggers key of method
+	 **
+	 * @param method Method
+	 */
+	public static String getMethod(Core.Method method) throws Exception {
+		switch (method) {
+		case CREATE:
+			return CREATE;
+
+		case UPDATE:
+			return UPDATE;
+
+		case DELETE:
+			return DELETE;
+
+		default:
+			throw new UnknownMethodException(method);
+		}
+	}
+
 	public static Map<String, Trigger> getByType(ObjectDocument baseDocument, String type) throws Exception {
-		Map<String, java.lang.Object> properties = baseDocument.getProperties();
-		if (!properties.containsKey(triggersKey)) {
+		// read only, keep document unmodified
+		if (!baseDocument.containsAttribute(triggersKey)) {
 			throw new TriggerNotFoundException();
 		}
-		java.lang.Object object = properties.get(triggersKey);
+		java.lang.Object object = baseDocument.getAttribute(triggersKey);
 		Map<String, Map<String, Trigger>> triggersMap = deserialize(object);
 
 		if (!triggersMap.containsKey(type)) {
@@ -199,11 +228,6 @@ public class Trigger {
 	}
 
 	public static Map<String, Map<String, Trigger>> deserialize(Object from) throws Exception {
-		ObjectMapper mapper = new ObjectMapper();
-		mapper.configure(SerializationFeature.FAIL_ON_SELF_REFERENCES, false);
-
-		TypeReference<Map<String, Map<String, Trigger>>> ref = new TypeReference<Map<String, Map<String, Trigger>>>() {
-		};
-		return mapper.convertValue(from, ref);
+		return mapper.convertValue(from, triggersRef);
 	}
 }
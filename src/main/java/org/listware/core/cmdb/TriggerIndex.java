@@ -0,0 +1,171 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.cmdb;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.flink.statefun.sdk.Context;
+import org.apache.flink.statefun.sdk.FunctionType;
+import org.apache.flink.statefun.sdk.reqreply.generated.TypedValue;
+import org.listware.core.documents.ObjectDocument;
+import org.listware.core.utils.Settings;
+import org.listware.core.utils.exceptions.TriggerNotFoundException;
+import org.listware.io.utils.TypedValueDeserializer;
+import org.listware.sdk.Functions;
+import org.listware.sdk.pbcmdb.Core;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Compiled triggers of documents (types, type links) keyed by document id and
+ * revision. Table is rebuilt only when revision changes, dispatch is a lookup
+ * plus a send
+ **
+ */
+public class TriggerIndex {
+	@SuppressWarnings("unused")
+	private static final Logger LOG = LoggerFactory.getLogger(TriggerIndex.class);
+
+	public static final String CACHE_SIZE = "listware.triggers.cache-size";
+
+	private static final Core.Method[] METHODS = { Core.Method.CREATE, Core.Method.UPDATE, Core.Method.DELETE };
+
+	/**
+	 * Template of message sent to trigger function, id is set on dispatch
+	 **
+	 */
+	public interface TemplateFactory {
+		Functions.FunctionContext template(Trigger trigger, Core.Method method);
+	}
+
+	/**
+	 * Compiled trigger
+	 **
+	 */
+	public static class Entry {
+		private final FunctionType functionType;
+		private final Functions.FunctionContext template;
+
+		private Entry(FunctionType functionType, Functions.FunctionContext template) {
+			this.functionType = functionType;
+			this.template = template;
+		}
+
+		public FunctionType getFunctionType() {
+			return functionType;
+		}
+
+		public Functions.FunctionContext getTemplate() {
+			return template;
+		}
+
+		/**
+		 * send send trigger message to id
+		 **
+		 * @param context Context
+		 * @param id      string
+		 */
+		public void send(Context context, String id) {
+			Functions.FunctionContext pbFunctionContext = template.toBuilder().setId(id).build();
+			TypedValue typedValue = TypedValueDeserializer.fromMessageLite(pbFunctionContext);
+			context.send(functionType, id, typedValue);
+		}
+	}
+
+	private static class Table {
+		private final String revision;
+		private final Map<Core.Method, List<Entry>> entries;
+
+		private Table(String revision, Map<Core.Method, List<Entry>> entries) {
+			this.revision = revision;
+			this.entries = entries;
+		}
+	}
+
+	private final TemplateFactory factory;
+	private final Cache<String, Table> tables;
+
+	public TriggerIndex(TemplateFactory factory) {
+		this.factory = factory;
+		this.tables = CacheBuilder.newBuilder().maximumSize(Settings.getLong(CACHE_SIZE, 10000)).build();
+	}
+
+	/**
+	 * get compiled triggers of document for method, empty if there are none
+	 **
+	 * @param document ObjectDocument
+	 * @param method   Method
+	 */
+	public List<Entry> get(ObjectDocument document, Core.Method method) throws Exception {
+		// fail fast on unknown method, before table lookup
+		Trigger.getMethod(method);
+
+		String id = document.getId();
+		String revision = document.getRevision();
+
+		// unsaved document, nothing to key the table with
+		if (id == null || revision == null) {
+			return compile(document).entries.get(method);
+		}
+
+		Table table = tables.getIfPresent(id);
+		if (table == null || !revision.equals(table.revision)) {
+			table = compile(document);
+			tables.put(id, table);
+		}
+		return table.entries.get(method);
+	}
+
+	/**
+	 * dispatch send triggers of document for method to id
+	 **
+	 * @param context  Context
+	 * @param document ObjectDocument
+	 * @param method   Method
+	 * @param id       string
+	 */
+	public void dispatch(Context context, ObjectDocument document, Core.Method method, String id) throws Exception {
+		for (Entry entry : get(document, method)) {
+			entry.send(context, id);
+		}
+	}
+
+	/**
+	 * invalidate drop table of document id
+	 **
+	 * @param id string
+	 */
+	public void invalidate(String id) {
+		tables.invalidate(id);
+	}
+
+	private Table compile(ObjectDocument document) throws Exception {
+		Map<Core.Method, List<Entry>> entries = new EnumMap<>(Core.Method.class);
+		for (Core.Method method : METHODS) {
+			entries.put(method, Collections.unmodifiableList(compile(document, method)));
+		}
+		return new Table(document.getRevision(), entries);
+	}
+
+	private List<Entry> compile(ObjectDocument document, Core.Method method) throws Exception {
+		List<Entry> entries = new ArrayList<>();
+		try {
+			for (Trigger trigger : Trigger.getByType(document, Trigger.getMethod(method)).values()) {
+				FunctionType functionType = new FunctionType(trigger.getNamespace(), trigger.getType());
+				entries.add(new Entry(functionType, factory.template(trigger, method)));
+			}
+		} catch (TriggerNotFoundException ignore) {
+		}
+		return entries;
+	}
+}
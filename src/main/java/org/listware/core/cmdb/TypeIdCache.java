@@ -0,0 +1,78 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.cmdb;
+
+import org.listware.core.utils.Settings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * Process wide object id -> type id mapping. Type of object never changes and
+ * object ids are not reused, so entries are never stale, size is bounded by
+ * 'listware.cmdb.type-cache-size'
+ **
+ */
+public class TypeIdCache {
+	@SuppressWarnings("unused")
+	private static final Logger LOG = LoggerFactory.getLogger(TypeIdCache.class);
+
+	public static final String SIZE = "listware.cmdb.type-cache-size";
+
+	private static TypeIdCache instance = null;
+
+	private Cache<String, String> types;
+
+	private TypeIdCache() {
+		types = CacheBuilder.newBuilder().maximumSize(Settings.getLong(SIZE, 100000)).recordStats().build();
+	}
+
+	public static synchronized TypeIdCache getInstance() {
+		if (instance == null) {
+			instance = new TypeIdCache();
+		}
+		return instance;
+	}
+
+	/**
+	 * get type id of object, null if unknown
+	 **
+	 * @param id string
+	 */
+	public String get(String id) {
+		return types.getIfPresent(id);
+	}
+
+	/**
+	 * put type id of object
+	 **
+	 * @param id     string
+	 * @param typeId string
+	 */
+	public void put(String id, String typeId) {
+		types.put(id, typeId);
+	}
+
+	/**
+	 * invalidate drop removed object
+	 **
+	 * @param id string
+	 */
+	public void invalidate(String id) {
+		types.invalidate(id);
+	}
+
+	public CacheStats stats() {
+		return types.stats();
+	}
+
+	public long size() {
+		return types.size();
+	}
+}
@@ -0,0 +1,251 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.documents;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.listware.core.documents.entity.DocumentFields;
+
+import org.listware.core.utils.Settings;
+import org.listware.core.utils.exceptions.PayloadNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.arangodb.jackson.dataformat.velocypack.VPackFactory;
+import com.arangodb.jackson.dataformat.velocypack.VPackMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.hash.Hashing;
+import com.google.protobuf.ByteString;
+
+/**
+ * Document codec, reads payload straight from ByteString input with streaming
+ * parser and writes straight into ByteString output. Reads accept both json
+ * and velocypack, writes use 'listware.cmdb.payload-format' (json by default)
+ **
+ */
+public class DocumentCodec {
+	@SuppressWarnings("unused")
+	private static final Logger LOG = LoggerFactory.getLogger(DocumentCodec.class);
+
+	public static final String PAYLOAD_FORMAT = "listware.cmdb.payload-format";
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+	private static final VPackFactory VPACK_FACTORY = new VPackFactory();
+
+	// ObjectMapper is thread safe after configuration
+	private static final ObjectMapper JSON_MAPPER = new ObjectMapper(JSON_FACTORY);
+	private static final ObjectMapper VPACK_MAPPER = new VPackMapper(VPACK_FACTORY);
+
+	// canonical json, map keys sorted on every level
+	private static final ObjectMapper CANONICAL_MAPPER = new ObjectMapper(JSON_FACTORY)
+			.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+	private static PayloadFormat format = null;
+
+	private static final Set<String> SYSTEM_FIELDS = new HashSet<>(Arrays.asList(DocumentFields.ID,
+			DocumentFields.KEY, DocumentFields.REV, DocumentFields.FROM, DocumentFields.TO, DocumentFields.NAME,
+			DocumentFields.TYPE, DocumentFields.META));
+
+	private DocumentCodec() {
+	}
+
+	/**
+	 * read document fields (system fields included)
+	 **
+	 * @param payload ByteString
+	 */
+	public static Map<String, Object> read(ByteString payload) throws Exception {
+		if (payload.isEmpty()) {
+			throw new PayloadNotFoundException();
+		}
+
+		try (JsonParser parser = createParser(payload)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new JsonParseException(parser, "document is not an object");
+			}
+			return readObject(parser);
+		}
+	}
+
+	/**
+	 * read only system fields ('_id', '_key', '_rev', '_from', '_to', '_name',
+	 * '_type', '_meta'), other values are skipped without building them
+	 **
+	 * @param payload ByteString
+	 */
+	public static Map<String, Object> scan(ByteString payload) throws Exception {
+		if (payload.isEmpty()) {
+			throw new PayloadNotFoundException();
+		}
+
+		try (JsonParser parser = createParser(payload)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new JsonParseException(parser, "document is not an object");
+			}
+
+			Map<String, Object> values = new HashMap<>();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.getCurrentName();
+				parser.nextToken();
+				if (SYSTEM_FIELDS.contains(name)) {
+					values.put(name, readValue(parser));
+				} else {
+					parser.skipChildren();
+				}
+			}
+			return values;
+		}
+	}
+
+	/**
+	 * write document with configured format
+	 **
+	 * @param document ObjectDocument
+	 */
+	public static ByteString write(ObjectDocument document) throws Exception {
+		return write(document, getFormat());
+	}
+
+	/**
+	 * write document
+	 **
+	 * @param document ObjectDocument
+	 * @param format   PayloadFormat
+	 */
+	public static ByteString write(ObjectDocument document, PayloadFormat format) throws Exception {
+		ByteString.Output output = ByteString.newOutput();
+		if (format == PayloadFormat.VPACK) {
+			VPACK_MAPPER.writeValue(output, document);
+		} else {
+			JSON_MAPPER.writeValue(output, document);
+		}
+		return output.toByteString();
+	}
+
+	/**
+	 * write any value (patch, properties) with configured format
+	 **
+	 * @param value Object
+	 */
+	public static ByteString writeValue(Object value) throws Exception {
+		ByteString.Output output = ByteString.newOutput();
+		if (getFormat() == PayloadFormat.VPACK) {
+			VPACK_MAPPER.writeValue(output, value);
+		} else {
+			JSON_MAPPER.writeValue(output, value);
+		}
+		return output.toByteString();
+	}
+
+	/**
+	 * value in the same shape as read() produces (maps, lists, BigDecimal
+	 * floats), pojos are converted
+	 **
+	 * @param value Object
+	 */
+	static Object normalize(Object value) throws Exception {
+		byte[] bytes = JSON_MAPPER.writeValueAsBytes(value);
+		try (JsonParser parser = JSON_FACTORY.createParser(bytes)) {
+			parser.nextToken();
+			return readValue(parser);
+		}
+	}
+
+	/**
+	 * fingerprint of properties, hash of canonical json
+	 **
+	 * @param properties Map
+	 */
+	public static String fingerprint(Map<String, Object> properties) throws Exception {
+		byte[] bytes = CANONICAL_MAPPER.writeValueAsBytes(properties);
+		return Hashing.farmHashFingerprint64().hashBytes(bytes).toString();
+	}
+
+	/**
+	 * configured write format
+	 **
+	 */
+	public static PayloadFormat getFormat() {
+		if (format == null) {
+			format = PayloadFormat.valueOf(Settings.getString(PAYLOAD_FORMAT, PayloadFormat.JSON.name()).toUpperCase());
+		}
+		return format;
+	}
+
+	private static JsonParser createParser(ByteString payload) throws IOException {
+		// velocypack parser does not support stream decoding
+		if (PayloadFormat.detect(payload) == PayloadFormat.VPACK) {
+			return VPACK_FACTORY.createParser(payload.toByteArray());
+		}
+		return JSON_FACTORY.createParser(payload.newInput());
+	}
+
+	private static Map<String, Object> readObject(JsonParser parser) throws IOException {
+		Map<String, Object> values = new LinkedHashMap<>();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.getCurrentName();
+			parser.nextToken();
+			values.put(name, readValue(parser));
+		}
+		return values;
+	}
+
+	private static List<Object> readArray(JsonParser parser) throws IOException {
+		List<Object> values = new ArrayList<>();
+		while (parser.nextToken() != JsonToken.END_ARRAY) {
+			values.add(readValue(parser));
+		}
+		return values;
+	}
+
+	// same value types as JsonLoader tree converted to Map (floats as BigDecimal)
+	private static Object readValue(JsonParser parser) throws IOException {
+		switch (parser.getCurrentToken()) {
+		case START_OBJECT:
+			return readObject(parser);
+
+		case START_ARRAY:
+			return readArray(parser);
+
+		case VALUE_STRING:
+			return parser.getText();
+
+		case VALUE_NUMBER_INT:
+			return parser.getNumberValue();
+
+		case VALUE_NUMBER_FLOAT:
+			return parser.getDecimalValue();
+
+		case VALUE_TRUE:
+			return Boolean.TRUE;
+
+		case VALUE_FALSE:
+			return Boolean.FALSE;
+
+		case VALUE_NULL:
+			return null;
+
+		case VALUE_EMBEDDED_OBJECT:
+			return parser.getEmbeddedObject();
+
+		default:
+			throw new JsonParseException(parser, "unexpected token " + parser.getCurrentToken());
+		}
+	}
+}
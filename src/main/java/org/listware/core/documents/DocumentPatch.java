@@ -0,0 +1,172 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.documents;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.listware.core.documents.entity.DocumentFields;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * Update payload for document, minimal json merge patch against the payload
+ * document was loaded from. Full document is sent when there is nothing to
+ * diff with (document was not loaded from cmdb), and full replace is used when
+ * patch can't express the change (removed keys, changed system fields)
+ **
+ */
+public class DocumentPatch {
+	@SuppressWarnings("unused")
+	private static final Logger LOG = LoggerFactory.getLogger(DocumentPatch.class);
+
+	private ByteString payload;
+	private boolean replace;
+
+	private DocumentPatch(ByteString payload, boolean replace) {
+		this.payload = payload;
+		this.replace = replace;
+	}
+
+	public ByteString getPayload() {
+		return payload;
+	}
+
+	/**
+	 * payload is full document and must be sent as replace
+	 **
+	 */
+	public boolean isReplace() {
+		return replace;
+	}
+
+	/**
+	 * of create update payload for document
+	 **
+	 * @param document ObjectDocument
+	 */
+	public static DocumentPatch of(ObjectDocument document) throws Exception {
+		ByteString payload = document.getPayload();
+
+		// nothing to diff with, full document as before
+		if (payload == null) {
+			return new DocumentPatch(document.serialize(), false);
+		}
+
+		Map<String, Object> patch = new LinkedHashMap<>();
+
+		if (document.isModified()) {
+			// properties are full content, hash is known
+			document.updateHash();
+
+			Map<String, Object> base = DocumentCodec.read(payload);
+
+			if (!sameSystemFields(document, base)) {
+				return new DocumentPatch(document.serialize(), true);
+			}
+
+			@SuppressWarnings("unchecked")
+			Map<String, Object> baseMeta = (Map<String, Object>) base.remove(DocumentFields.META);
+			document.removeSystemFields(base);
+
+			if (!diff(base, document.properties(), patch, true)) {
+				return new DocumentPatch(document.serialize(), true);
+			}
+
+			Map<String, Object> meta = new LinkedHashMap<>();
+			meta.put(DocumentFields.META, DocumentCodec.normalize(document.getMeta()));
+			Map<String, Object> metaBase = new LinkedHashMap<>();
+			metaBase.put(DocumentFields.META, baseMeta);
+			if (!diff(metaBase, meta, patch, false)) {
+				return new DocumentPatch(document.serialize(), true);
+			}
+		}
+
+		return new DocumentPatch(DocumentCodec.writeValue(patch), false);
+	}
+
+	/**
+	 * merge properties like cmdb update does (nested objects are merged)
+	 **
+	 * @param base  Map
+	 * @param patch Map
+	 */
+	@SuppressWarnings("unchecked")
+	public static Map<String, Object> merge(Map<String, Object> base, Map<String, Object> patch) {
+		Map<String, Object> merged = new LinkedHashMap<>(base);
+		for (Map.Entry<String, Object> entry : patch.entrySet()) {
+			Object baseValue = merged.get(entry.getKey());
+			Object value = entry.getValue();
+			if (baseValue instanceof Map && value instanceof Map) {
+				value = merge((Map<String, Object>) baseValue, (Map<String, Object>) value);
+			}
+			merged.put(entry.getKey(), value);
+		}
+		return merged;
+	}
+
+	private static boolean sameSystemFields(ObjectDocument document, Map<String, Object> base) {
+		if (!Objects.equals(base.get(DocumentFields.KEY), document.getKey())) {
+			return false;
+		}
+
+		if (document instanceof LinkDocument) {
+			LinkDocument link = (LinkDocument) document;
+			return Objects.equals(base.get(DocumentFields.FROM), link.getFrom())
+					&& Objects.equals(base.get(DocumentFields.TO), link.getTo())
+					&& Objects.equals(base.get(DocumentFields.NAME), link.getName())
+					&& Objects.equals(base.get(DocumentFields.TYPE), link.getType());
+		}
+		return true;
+	}
+
+	// false if merge patch can't express the change (null means remove)
+	@SuppressWarnings("unchecked")
+	private static boolean diff(Map<String, Object> base, Map<String, Object> current, Map<String, Object> patch,
+			boolean normalize) throws Exception {
+		for (String key : base.keySet()) {
+			if (!current.containsKey(key)) {
+				return false;
+			}
+		}
+
+		for (Map.Entry<String, Object> entry : current.entrySet()) {
+			String key = entry.getKey();
+			Object value = entry.getValue();
+			Object baseValue = base.get(key);
+
+			if (base.containsKey(key) && Objects.equals(baseValue, value)) {
+				continue;
+			}
+
+			// values put by callers may be pojos (triggers)
+			if (normalize) {
+				value = DocumentCodec.normalize(value);
+				if (base.containsKey(key) && Objects.equals(baseValue, value)) {
+					continue;
+				}
+			}
+
+			if (value == null) {
+				return false;
+			}
+
+			if (baseValue instanceof Map && value instanceof Map) {
+				Map<String, Object> nested = new LinkedHashMap<>();
+				if (!diff((Map<String, Object>) baseValue, (Map<String, Object>) value, nested, false)) {
+					return false;
+				}
+				patch.put(key, nested);
+			} else {
+				patch.put(key, value);
+			}
+		}
+		return true;
+	}
+}
@@ -2,19 +2,15 @@
 
 package org.listware.core.documents;
 
+import java.util.HashMap;
 import java.util.Map;
 
 import org.listware.core.documents.entity.DocumentFields;
 import org.listware.core.documents.entity.Name;
 import org.listware.core.documents.entity.Type;
-import org.listware.core.utils.exceptions.PayloadNotFoundException;
 
 import com.arangodb.entity.From;
 import com.arangodb.entity.To;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.github.fge.jackson.JsonLoader;
 import com.google.protobuf.ByteString;
 
 public class LinkDocument extends ObjectDocument {
@@ -64,6 +60,7 @@ public class LinkDocument extends ObjectDocument {
 
 	public void setFrom(final String from) {
 		this.from = from;
+		markModified();
 	}
 
 	public String getTo() {
@@ -72,6 +69,7 @@ public class LinkDocument extends ObjectDocument {
 
 	public void setTo(final String to) {
 		this.to = to;
+		markModified();
 	}
 
 	public String getName() {
@@ -80,6 +78,7 @@ public class LinkDocument extends ObjectDocument {
 
 	public void setName(String name) {
 		this.name = name;
+		markModified();
 	}
 
 	public String getType() {
@@ -109,12 +108,36 @@ public class LinkDocument extends ObjectDocument {
 
 	public void setType(String type) {
 		this.type = type;
+		markModified();
+	}
+
+	/**
+	 * fingerprint of properties and link ends, name and type
+	 **
+	 */
+	@Override
+	public String fingerprint() throws Exception {
+		Map<String, Object> values = new HashMap<>(properties());
+		values.put(DocumentFields.FROM, from);
+		values.put(DocumentFields.TO, to);
+		values.put(DocumentFields.NAME, name);
+		values.put(DocumentFields.TYPE, type);
+		return DocumentCodec.fingerprint(values);
+	}
+
+	@Override
+	protected void removeSystemFields(Map<String, Object> values) {
+		super.removeSystemFields(values);
+		values.remove(DocumentFields.FROM);
+		values.remove(DocumentFields.TO);
+		values.remove(DocumentFields.NAME);
+		values.remove(DocumentFields.TYPE);
 	}
 
 	@Override
 	public String toString() {
 		return "BaseDocument [documentRevision=" + revision + ", documentHandle=" + id + ", documentKey=" + key
-				+ ", from=" + from + ", to=" + to + ", properties=" + this.getProperties() + "]";
+				+ ", from=" + from + ", to=" + to + ", properties=" + properties() + "]";
 	}
 
 	@Override
@@ -168,16 +191,17 @@ public class LinkDocument extends ObjectDocument {
 	}
 
 	public static LinkDocument deserialize(ByteString payload) throws Exception {
-		if (payload.isEmpty()) {
-			throw new PayloadNotFoundException();
-		}
-
-		JsonNode jsonNode = JsonLoader.fromString(payload.toStringUtf8());
-		ObjectMapper mapper = new ObjectMapper();
-
-		TypeReference<Map<String, java.lang.Object>> ref = new TypeReference<Map<String, java.lang.Object>>() {
-		};
-		Map<String, java.lang.Object> values = mapper.convertValue(jsonNode, ref);
-		return new LinkDocument(values);
+		return new LinkDocument(DocumentCodec.read(payload));
+	}
+
+	/**
+	 * lazy link, only system fields are read from payload
+	 **
+	 * @param payload ByteString
+	 */
+	public static LinkDocument lazy(ByteString payload) throws Exception {
+		LinkDocument document = new LinkDocument(DocumentCodec.scan(payload));
+		document.defer(payload);
+		return document;
 	}
 }
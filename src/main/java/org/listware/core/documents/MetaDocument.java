@@ -7,6 +7,8 @@ import java.util.Map;
 
 import org.listware.core.documents.entity.Created;
 import org.listware.core.documents.entity.DocumentFields;
+import org.listware.core.documents.entity.Hash;
+import org.listware.core.documents.entity.TypeId;
 import org.listware.core.documents.entity.Updated;
 
 public class MetaDocument implements Serializable {
@@ -18,10 +20,19 @@ public class MetaDocument implements Serializable {
 	@Updated
 	private Number updated;
 
+	// content fingerprint, empty if unknown
+	@Hash
+	private String hash;
+
+	// type of object, stamped on create
+	@TypeId
+	private String typeId;
+
 	public MetaDocument() {
 		super();
 		created = System.currentTimeMillis();
 		updated = created;
+		hash = "";
 	}
 
 	public MetaDocument(final Map<String, Object> properties) {
@@ -34,6 +45,14 @@ public class MetaDocument implements Serializable {
 		if (tmpUpdated != null) {
 			updated = (Number) tmpUpdated;
 		}
+		final Object tmpHash = properties.remove(DocumentFields.HASH);
+		if (tmpHash != null) {
+			hash = tmpHash.toString();
+		}
+		final Object tmpTypeId = properties.remove(DocumentFields.TYPE_ID);
+		if (tmpTypeId != null) {
+			typeId = tmpTypeId.toString();
+		}
 	}
 
 	public Number getCreated() {
@@ -52,6 +71,22 @@ public class MetaDocument implements Serializable {
 		this.updated = updated;
 	}
 
+	public String getHash() {
+		return hash;
+	}
+
+	public void setHash(String hash) {
+		this.hash = hash;
+	}
+
+	public String getTypeId() {
+		return typeId;
+	}
+
+	public void setTypeId(String typeId) {
+		this.typeId = typeId;
+	}
+
 	public void update() {
 		updated = System.currentTimeMillis();
 	}
@@ -62,6 +97,8 @@ public class MetaDocument implements Serializable {
 		int result = 1;
 		result = prime * result + ((created == null) ? 0 : created.hashCode());
 		result = prime * result + ((updated == null) ? 0 : updated.hashCode());
+		result = prime * result + ((hash == null) ? 0 : hash.hashCode());
+		result = prime * result + ((typeId == null) ? 0 : typeId.hashCode());
 		return result;
 	}
 
@@ -84,6 +121,20 @@ public class MetaDocument implements Serializable {
 		} else if (!created.equals(other.created)) {
 			return false;
 		}
+		if (hash == null) {
+			if (other.hash != null) {
+				return false;
+			}
+		} else if (!hash.equals(other.hash)) {
+			return false;
+		}
+		if (typeId == null) {
+			if (other.typeId != null) {
+				return false;
+			}
+		} else if (!typeId.equals(other.typeId)) {
+			return false;
+		}
 		if (updated == null) {
 			return other.updated == null;
 		} else
@@ -11,7 +11,6 @@ import java.util.Map;
 
 import org.listware.core.documents.entity.DocumentFields;
 import org.listware.core.documents.entity.Meta;
-import org.listware.core.utils.exceptions.PayloadNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,10 +20,6 @@ import com.arangodb.entity.Rev;
 import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonAnySetter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.github.fge.jackson.JsonLoader;
 import com.google.protobuf.ByteString;
 
 public class ObjectDocument implements Serializable {
@@ -44,6 +39,12 @@ public class ObjectDocument implements Serializable {
 	@JsonIgnore
 	private Map<String, Object> properties;
 
+	// raw payload of lazy document, properties are parsed on first access
+	@JsonIgnore
+	private ByteString payload;
+	@JsonIgnore
+	private boolean modified = true;
+
 	public ObjectDocument() {
 		super();
 		properties = new HashMap<>();
@@ -65,6 +66,9 @@ public class ObjectDocument implements Serializable {
 	}
 
 	public void setId(final String id) {
+		if (id == null ? this.id != null : !id.equals(this.id)) {
+			modified = true;
+		}
 		this.id = id;
 	}
 
@@ -74,6 +78,7 @@ public class ObjectDocument implements Serializable {
 
 	public void setKey(final String key) {
 		this.key = key;
+		modified = true;
 	}
 
 	public String getRevision() {
@@ -82,6 +87,7 @@ public class ObjectDocument implements Serializable {
 
 	public void setRevision(final String revision) {
 		this.revision = revision;
+		modified = true;
 	}
 
 	public MetaDocument getMeta() {
@@ -90,16 +96,20 @@ public class ObjectDocument implements Serializable {
 
 	public void setMeta(MetaDocument meta) {
 		this.meta = meta;
+		modified = true;
 	}
 
 	@JsonAnyGetter
 	public Map<String, Object> getProperties() {
-		return properties;
+		// map is mutable, can't pass raw payload through anymore
+		modified = true;
+		return properties();
 	}
 
 	@JsonAnySetter
 	public void setProperties(final Map<String, Object> properties) {
 		this.properties = properties;
+		modified = true;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -121,43 +131,34 @@ public class ObjectDocument implements Serializable {
 			meta = new MetaDocument((Map<String, Object>) tmpMeta);
 		}
 		this.properties = properties;
+		modified = true;
 		meta.update();
 	}
 
 	public void replaceProperties(ByteString payload) throws Exception {
-		if (payload.isEmpty()) {
-			throw new PayloadNotFoundException();
-		}
-
-		JsonNode jsonNode = JsonLoader.fromString(payload.toStringUtf8());
-
-		ObjectMapper mapper = new ObjectMapper();
-
-		TypeReference<Map<String, Object>> ref = new TypeReference<Map<String, Object>>() {
-		};
-
-		Map<String, Object> values = mapper.convertValue(jsonNode, ref);
-		replaceProperties(values);
+		replaceProperties(DocumentCodec.read(payload));
 	}
 
 	public void addAttribute(final String key, final Object value) {
-		properties.put(key, value);
+		properties().put(key, value);
+		modified = true;
 		meta.update();
 	}
 
 	public void updateAttribute(final String key, final Object value) {
-		if (properties.containsKey(key)) {
+		if (properties().containsKey(key)) {
 			properties.put(key, value);
+			modified = true;
 			meta.update();
 		}
 	}
 
 	public Object getAttribute(final String key) {
-		return properties.get(key);
+		return properties().get(key);
 	}
 
 	public Boolean containsAttribute(final String key) {
-		return properties.containsKey(key);
+		return properties().containsKey(key);
 	}
 
 	public void updateProperties(final Map<String, Object> properties) {
@@ -166,13 +167,96 @@ public class ObjectDocument implements Serializable {
 		properties.remove(DocumentFields.REV);
 		properties.remove(DocumentFields.META);
 		this.properties = properties;
+		modified = true;
 		meta.update();
 	}
 
+	/**
+	 * fingerprint of properties
+	 **
+	 */
+	public String fingerprint() throws Exception {
+		return DocumentCodec.fingerprint(properties());
+	}
+
+	/**
+	 * stampType set type of object to meta
+	 **
+	 * @param typeId string
+	 */
+	public void stampType(String typeId) {
+		if (!typeId.equals(meta.getTypeId())) {
+			meta.setTypeId(typeId);
+			modified = true;
+		}
+	}
+
+	/**
+	 * set content fingerprint to meta
+	 **
+	 */
+	public void updateHash() throws Exception {
+		String hash = fingerprint();
+		if (!hash.equals(meta.getHash())) {
+			meta.setHash(hash);
+			modified = true;
+		}
+	}
+
+	/**
+	 * is lazy and properties not parsed yet
+	 **
+	 */
+	@JsonIgnore
+	public boolean isLazy() {
+		return properties == null && payload != null;
+	}
+
+	// keep raw payload, properties will be parsed on demand
+	void defer(ByteString payload) {
+		this.payload = payload;
+		this.properties = null;
+		this.modified = false;
+	}
+
+	protected void markModified() {
+		modified = true;
+	}
+
+	// payload document was loaded from
+	ByteString getPayload() {
+		return payload;
+	}
+
+	boolean isModified() {
+		return modified;
+	}
+
+	// parse properties of lazy document
+	protected Map<String, Object> properties() {
+		if (properties == null && payload != null) {
+			try {
+				Map<String, Object> values = DocumentCodec.read(payload);
+				removeSystemFields(values);
+				properties = values;
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		return properties;
+	}
+
+	protected void removeSystemFields(Map<String, Object> values) {
+		values.remove(DocumentFields.ID);
+		values.remove(DocumentFields.KEY);
+		values.remove(DocumentFields.REV);
+		values.remove(DocumentFields.META);
+	}
+
 	@Override
 	public String toString() {
 		return "BaseDocument [documentRevision=" + revision + ", documentHandle=" + id + ", documentKey=" + key
-				+ ", properties=" + properties + "]";
+				+ ", properties=" + properties() + "]";
 	}
 
 	@Override
@@ -181,7 +265,7 @@ public class ObjectDocument implements Serializable {
 		int result = 1;
 		result = prime * result + ((id == null) ? 0 : id.hashCode());
 		result = prime * result + ((key == null) ? 0 : key.hashCode());
-		result = prime * result + ((properties == null) ? 0 : properties.hashCode());
+		result = prime * result + ((properties() == null) ? 0 : properties.hashCode());
 		result = prime * result + ((revision == null) ? 0 : revision.hashCode());
 		result = prime * result + ((meta == null) ? 0 : meta.hashCode());
 		return result;
@@ -213,11 +297,11 @@ public class ObjectDocument implements Serializable {
 		} else if (!key.equals(other.key)) {
 			return false;
 		}
-		if (properties == null) {
-			if (other.properties != null) {
+		if (properties() == null) {
+			if (other.properties() != null) {
 				return false;
 			}
-		} else if (!properties.equals(other.properties)) {
+		} else if (!properties.equals(other.properties())) {
 			return false;
 		}
 		if (meta == null) {
@@ -234,9 +318,11 @@ public class ObjectDocument implements Serializable {
 	}
 
 	public ByteString serialize() throws Exception {
-		ObjectMapper mapper = new ObjectMapper();
-		byte[] values = mapper.writeValueAsBytes(this);
-		return ByteString.copyFrom(values);
+		// unchanged lazy document, pass raw payload through
+		if (payload != null && !modified && PayloadFormat.detect(payload) == DocumentCodec.getFormat()) {
+			return payload;
+		}
+		return DocumentCodec.write(this);
 	}
 
 	public static ObjectDocument deserialize(byte[] values) throws Exception {
@@ -244,19 +330,17 @@ public class ObjectDocument implements Serializable {
 	}
 
 	public static ObjectDocument deserialize(ByteString payload) throws Exception {
-		if (payload.isEmpty()) {
-			throw new PayloadNotFoundException();
-		}
-
-		JsonNode jsonNode = JsonLoader.fromString(payload.toStringUtf8());
-
-		ObjectMapper mapper = new ObjectMapper();
-
-		TypeReference<Map<String, Object>> ref = new TypeReference<Map<String, Object>>() {
-		};
-
-		Map<String, Object> values = mapper.convertValue(jsonNode, ref);
+		return new ObjectDocument(DocumentCodec.read(payload));
+	}
 
-		return new ObjectDocument(values);
+	/**
+	 * lazy document, only system fields are read from payload
+	 **
+	 * @param payload ByteString
+	 */
+	public static ObjectDocument lazy(ByteString payload) throws Exception {
+		ObjectDocument document = new ObjectDocument(DocumentCodec.scan(payload));
+		document.defer(payload);
+		return document;
 	}
 }
@@ -0,0 +1,66 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.documents;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * Wire format of cmdb document payloads
+ **
+ */
+public enum PayloadFormat {
+	JSON, VPACK;
+
+	// vpack object with 4 byte length, documents over 64 KB
+	private static final int VPACK_OBJECT_32 = 0x0d;
+
+	/**
+	 * detect payload format by head byte, velocypack objects start with
+	 * 0x0a..0x12 or 0x14, json objects with '{' after optional whitespace
+	 **
+	 * @param payload ByteString
+	 */
+	public static PayloadFormat detect(ByteString payload) {
+		int head = payload.byteAt(0) & 0xff;
+
+		// '\r' is also head of large vpack object, its length says which
+		if (head == VPACK_OBJECT_32 && payload.size() >= 5 && length32(payload) == payload.size()) {
+			return VPACK;
+		}
+		if ((head >= 0x0a && head <= 0x12) || head == 0x14) {
+			// '\n' and '\r' are also vpack heads
+			return isJsonObject(payload) ? JSON : VPACK;
+		}
+		return JSON;
+	}
+
+	// first non-whitespace byte is '{'
+	private static boolean isJsonObject(ByteString payload) {
+		for (int i = 0; i < payload.size(); i++) {
+			switch (payload.byteAt(i)) {
+			case ' ':
+			case '\t':
+			case '\n':
+			case '\r':
+				continue;
+			case '{':
+				return true;
+			default:
+				return false;
+			}
+		}
+		return false;
+	}
+
+	// little endian byte length of vpack object
+	private static long length32(ByteString payload) {
+		long length = 0;
+		for (int i = 4; i >= 1; i--) {
+			length = (length << 8) | (payload.byteAt(i) & 0xff);
+		}
+		return length;
+	}
+}
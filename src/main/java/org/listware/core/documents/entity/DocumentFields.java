@@ -18,4 +18,6 @@ public class DocumentFields {
 	public static final String META = "_meta";
 	public static final String CREATED = "created";
 	public static final String UPDATED = "updated";
+	public static final String HASH = "hash";
+	public static final String TYPE_ID = "type";
 }
@@ -6,8 +6,11 @@ import org.apache.flink.statefun.sdk.FunctionType;
 import org.apache.flink.statefun.sdk.StatefulFunction;
 import org.apache.flink.statefun.sdk.StatefulFunctionProvider;
 import org.listware.core.cmdb.Cmdb;
+import org.listware.core.provider.functions.Aggregator;
+import org.listware.core.provider.functions.Backfill;
 import org.listware.core.provider.functions.Log;
 import org.listware.core.provider.functions.Register;
+import org.listware.core.provider.functions.ReplyBatcher;
 import org.listware.core.provider.functions.Router;
 import org.listware.core.provider.functions.link.AdvancedLink;
 import org.listware.core.provider.functions.link.LinkTrigger;
@@ -33,6 +36,9 @@ public class FunctionProvider implements StatefulFunctionProvider {
 	private AdvancedLink advancedlink = new AdvancedLink();
 	private LinkTrigger linkTrigger = new LinkTrigger();
 	private Router router = new Router();
+	private ReplyBatcher replyBatcher = new ReplyBatcher();
+	private Aggregator aggregator = new Aggregator();
+	private Backfill backfill = new Backfill();
 
 	public FunctionProvider() {
 		try {
@@ -83,6 +89,18 @@ public class FunctionProvider implements StatefulFunctionProvider {
 		if (functionType.equals(LinkTrigger.FUNCTION_TYPE)) {
 			return linkTrigger;
 		}
+
+		if (functionType.equals(ReplyBatcher.FUNCTION_TYPE)) {
+			return replyBatcher;
+		}
+
+		if (functionType.equals(Aggregator.FUNCTION_TYPE)) {
+			return aggregator;
+		}
+
+		if (functionType.equals(Backfill.FUNCTION_TYPE)) {
+			return backfill;
+		}
 		
 		return null;
 	}
@@ -0,0 +1,152 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.provider.functions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.flink.statefun.sdk.Context;
+import org.apache.flink.statefun.sdk.FunctionType;
+import org.apache.flink.statefun.sdk.reqreply.generated.TypedValue;
+import org.listware.core.utils.Settings;
+import org.listware.io.utils.TypedValueDeserializer;
+import org.listware.io.utils.Constants.Namespaces;
+import org.listware.sdk.Functions;
+import org.listware.sdk.Result;
+import org.listware.sdk.pbcmdb.pbqdsl.QDSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * Fan-in aggregator of large router fan-outs. Router fan-outs above
+ * 'listware.router.aggregate-shard-size' targets (0 - off) are split into
+ * shards of at most that size, every shard is sent by own aggregator instance
+ * that collects its results and replies upward with one merged result.
+ * Shards larger than shard size are split again (tree)
+ **
+ */
+public class Aggregator extends Base {
+	@SuppressWarnings("unused")
+	private static final Logger LOG = LoggerFactory.getLogger(Aggregator.class);
+
+	public static final String TYPE = "aggregator.system.functions.root";
+
+	public static final FunctionType FUNCTION_TYPE = new FunctionType(Namespaces.INTERNAL, TYPE);
+
+	public static final String SHARD_SIZE = "listware.router.aggregate-shard-size";
+
+	public Aggregator() {
+		super(TYPE, TYPE);
+	}
+
+	@Override
+	public void invoke(Context context, Functions.FunctionContext functionContext) throws Exception {
+		InputStream input = functionContext.getValue().newInput();
+
+		Functions.FunctionContext template = Functions.FunctionContext.parseDelimitedFrom(input);
+		QDSL.Elements elements = QDSL.Elements.parseDelimitedFrom(input);
+
+		fanOut(context, template, elements.getElementsList(), this::replyResult);
+	}
+
+	/**
+	 * isEnabled fan-out of size goes through aggregators
+	 **
+	 * @param size int
+	 */
+	public static boolean isEnabled(int size) {
+		int shardSize = Settings.getInt(SHARD_SIZE, 0);
+		return shardSize > 0 && size > shardSize();
+	}
+
+	// fan-out of a node, tree needs at least two
+	private static int shardSize() {
+		return Math.max(2, Settings.getInt(SHARD_SIZE, 0));
+	}
+
+	/**
+	 * fanOut send template to every element, through aggregators if there are
+	 * more elements than shard size
+	 **
+	 * @param context     Context
+	 * @param template    FunctionContext
+	 * @param elements    List
+	 * @param replyResult reply of child result to sender
+	 */
+	static void fanOut(Context context, Functions.FunctionContext template, List<QDSL.Element> elements,
+			Function<Context, Result.ReplyResult> replyResult) throws Exception {
+		int shardSize = shardSize();
+		int size = elements.size();
+
+		if (size <= shardSize) {
+			for (QDSL.Element element : elements) {
+				send(context, template, element, replyResult);
+			}
+			return;
+		}
+
+		// at most shard size children per node
+		int shards = Math.min(shardSize, (size + shardSize - 1) / shardSize);
+		int step = (size + shards - 1) / shards;
+
+		for (int from = 0; from < size; from += step) {
+			List<QDSL.Element> shard = elements.subList(from, Math.min(size, from + step));
+
+			Result.ReplyResult reply = replyResult.apply(context);
+
+			Functions.FunctionType functionType = Functions.FunctionType.newBuilder()
+					.setNamespace(Namespaces.INTERNAL).setType(TYPE).build();
+
+			Functions.FunctionContext functionContext = Functions.FunctionContext.newBuilder()
+					.setFunctionType(functionType).setId(reply.getKey()).setReplyResult(reply)
+					.setValue(encode(template, shard)).build();
+
+			TypedValue typedValue = TypedValueDeserializer.fromMessageLite(functionContext);
+
+			context.send(FUNCTION_TYPE, functionContext.getId(), typedValue);
+		}
+	}
+
+	/**
+	 * send template to element
+	 **
+	 * @param context     Context
+	 * @param template    FunctionContext
+	 * @param element     QDSL.Element
+	 * @param replyResult reply of child result to sender
+	 */
+	static void send(Context context, Functions.FunctionContext template, QDSL.Element element,
+			Function<Context, Result.ReplyResult> replyResult) throws Exception {
+		Functions.FunctionContext functionContext = template.toBuilder().setReplyResult(replyResult.apply(context))
+				.setId(element.getId()).build();
+
+		String namespace = functionContext.getFunctionType().getNamespace();
+		String type = functionContext.getFunctionType().getType();
+		FunctionType functionType = new FunctionType(namespace, type);
+
+		TypedValue typedValue = TypedValueDeserializer.fromMessageLite(functionContext);
+
+		context.send(functionType, functionContext.getId(), typedValue);
+	}
+
+	// template and target ids, length delimited
+	private static ByteString encode(Functions.FunctionContext template, List<QDSL.Element> shard)
+			throws IOException {
+		QDSL.Elements.Builder elements = QDSL.Elements.newBuilder();
+		for (QDSL.Element element : shard) {
+			elements.addElements(QDSL.Element.newBuilder().setId(element.getId()));
+		}
+
+		ByteString.Output output = ByteString.newOutput();
+		template.writeDelimitedTo(output);
+		elements.build().writeDelimitedTo(output);
+		return output.toByteString();
+	}
+}
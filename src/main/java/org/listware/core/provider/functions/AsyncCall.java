@@ -0,0 +1,94 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.provider.functions;
+
+import java.io.Serializable;
+
+import org.apache.flink.statefun.sdk.Address;
+import org.apache.flink.statefun.sdk.FunctionType;
+
+/**
+ * Metadata of registered async operation, kept in function state until the
+ * operation completes
+ **
+ */
+public class AsyncCall implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	// result table key of pending reply
+	private String key;
+	// serialized Functions.FunctionContext
+	private byte[] functionContext;
+	// caller of original message, null if from ingress
+	private String callerNamespace;
+	private String callerType;
+	private String callerId;
+
+	public AsyncCall() {
+		// POJO
+	}
+
+	public AsyncCall(String key, byte[] functionContext, Address caller) {
+		this.key = key;
+		this.functionContext = functionContext;
+		if (caller != null) {
+			this.callerNamespace = caller.type().namespace();
+			this.callerType = caller.type().name();
+			this.callerId = caller.id();
+		}
+	}
+
+	/**
+	 * toCaller caller address of original message
+	 **
+	 */
+	public Address toCaller() {
+		if (callerId == null) {
+			return null;
+		}
+		return new Address(new FunctionType(callerNamespace, callerType), callerId);
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public void setKey(String key) {
+		this.key = key;
+	}
+
+	public byte[] getFunctionContext() {
+		return functionContext;
+	}
+
+	public void setFunctionContext(byte[] functionContext) {
+		this.functionContext = functionContext;
+	}
+
+	public String getCallerNamespace() {
+		return callerNamespace;
+	}
+
+	public void setCallerNamespace(String callerNamespace) {
+		this.callerNamespace = callerNamespace;
+	}
+
+	public String getCallerType() {
+		return callerType;
+	}
+
+	public void setCallerType(String callerType) {
+		this.callerType = callerType;
+	}
+
+	public String getCallerId() {
+		return callerId;
+	}
+
+	public void setCallerId(String callerId) {
+		this.callerId = callerId;
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.provider.functions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.flink.statefun.sdk.Context;
+import org.apache.flink.statefun.sdk.FunctionType;
+import org.apache.flink.statefun.sdk.annotations.Persisted;
+import org.apache.flink.statefun.sdk.reqreply.generated.TypedValue;
+import org.apache.flink.statefun.sdk.state.PersistedTable;
+import org.apache.flink.statefun.sdk.state.PersistedValue;
+import org.listware.core.cmdb.Cmdb;
+import org.listware.core.documents.ObjectDocument;
+import org.listware.core.utils.Settings;
+import org.listware.io.utils.TypedValueDeserializer;
+import org.listware.io.utils.Constants.Namespaces;
+import org.listware.sdk.Functions;
+import org.listware.sdk.pbcmdb.pbqdsl.QDSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * One time migration of objects created before type stamping. Message to id
+ * 'types' starts backfill of every type, message to type id stamps one page
+ * of 'listware.cmdb.backfill.page-size' objects of type and sends itself the
+ * next page, value of message is id of last stamped object. Where storage
+ * can't page links, ids are read once on first page and paged in state
+ **
+ */
+public class Backfill extends Base {
+	@SuppressWarnings("unused")
+	private static final Logger LOG = LoggerFactory.getLogger(Backfill.class);
+
+	public static final String TYPE = "backfill.system.functions.root";
+
+	public static final FunctionType FUNCTION_TYPE = new FunctionType(Namespaces.INTERNAL, TYPE);
+
+	public static final String PAGE_SIZE = "listware.cmdb.backfill.page-size";
+
+	private static final String PAGES_TABLE = "pages-table";
+	private static final String PAGE = "page";
+
+	private int pageSize = Math.max(1, Settings.getInt(PAGE_SIZE, 500));
+
+	// pages of ids of type, only where storage can't page links
+	@Persisted
+	private PersistedTable<Integer, String> pagesTable = PersistedTable.of(PAGES_TABLE, Integer.class, String.class);
+
+	@Persisted
+	private PersistedValue<Integer> page = PersistedValue.of(PAGE, Integer.class);
+
+	public Backfill() {
+		super(TYPE, TYPE);
+	}
+
+	@Override
+	public void invoke(Context context, Functions.FunctionContext functionContext) throws Exception {
+		String id = context.self().id();
+
+		if (id.equals(Cmdb.Collections.TYPES)) {
+			QDSL.Options options = QDSL.Options.newBuilder().setId(true).build();
+			QDSL.Elements elements = cmdb.qdsl("*.types.root", options);
+
+			for (QDSL.Element element : elements.getElementsList()) {
+				send(context, element.getId(), ByteString.EMPTY);
+			}
+			return;
+		}
+
+		ObjectDocument type = cmdb.readDocument(id);
+		String after = functionContext.getValue().toStringUtf8();
+
+		List<String> ids = cmdb.typeObjects(type, after, pageSize);
+		if (ids == null) {
+			ids = page(type, after);
+		}
+		int count = cmdb.backfillTypeIds(type, ids);
+
+		LOG.info("stamped type to " + count + " of " + ids.size() + " objects of " + id);
+
+		// full page, there may be more
+		if (ids.size() == pageSize) {
+			send(context, id, ByteString.copyFromUtf8(ids.get(ids.size() - 1)));
+		}
+	}
+
+	// storage can't page links: ids are read with one query on first page and
+	// kept in pages, every page is read and dropped once
+	private List<String> page(ObjectDocument type, String after) throws Exception {
+		if (after.isEmpty()) {
+			pagesTable.clear();
+
+			List<String> ids = cmdb.typeObjectIds(type);
+			for (int i = 0; i < ids.size(); i += pageSize) {
+				pagesTable.set(i / pageSize, String.join("\n", ids.subList(i, Math.min(i + pageSize, ids.size()))));
+			}
+			page.set(0);
+		}
+
+		int current = page.getOrDefault(0);
+		String ids = pagesTable.get(current);
+		if (ids == null) {
+			page.clear();
+			return new ArrayList<>();
+		}
+
+		pagesTable.remove(current);
+		page.set(current + 1);
+		return Arrays.asList(ids.split("\n"));
+	}
+
+	private static void send(Context context, String id, ByteString after) {
+		Functions.FunctionContext functionContext = CreateFunctionContext(id, Namespaces.INTERNAL, TYPE, after);
+
+		TypedValue typedValue = TypedValueDeserializer.fromMessageLite(functionContext);
+
+		context.send(FUNCTION_TYPE, id, typedValue);
+	}
+}
@@ -5,10 +5,17 @@
 
 package org.listware.core.provider.functions;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.apache.flink.statefun.sdk.AsyncOperationResult;
 import org.apache.flink.statefun.sdk.Context;
 import org.apache.flink.statefun.sdk.StatefulFunction;
 import org.apache.flink.statefun.sdk.reqreply.generated.TypedValue;
 import org.listware.core.FunctionContext;
+import org.listware.core.cmdb.AsyncCmdb;
 import org.listware.core.cmdb.Cmdb;
 import org.listware.io.utils.Constants;
 import org.listware.sdk.Functions;
@@ -23,6 +30,8 @@ public class Base extends Sync implements StatefulFunction {
 
 	protected Cmdb cmdb = new Cmdb();
 
+	protected AsyncCmdb asyncCmdb = new AsyncCmdb(cmdb);
+
 	public Base(String groupID, String topic) {
 		super(groupID, topic);
 	}
@@ -44,10 +53,22 @@ public class Base extends Sync implements StatefulFunction {
 				} else if (typedValue.getTypename().equals(Constants.RESULT_MESSAGE_TYPENAME)) {
 					Result.FunctionResult functionResult = Result.FunctionResult.parseFrom(typedValue.getValue());
 					onResult(context, functionResult);
+				} else if (typedValue.getTypename().equals(TIMEOUT_TYPENAME)) {
+					onTimeout(context, typedValue.getValue().toStringUtf8());
 				} else {
 					LOG.error(context.self() + " unknown type received: " + typedValue.getTypename());
 				}
 
+			} else if (input instanceof AsyncOperationResult) {
+				@SuppressWarnings("unchecked")
+				AsyncOperationResult<AsyncCall, ?> result = (AsyncOperationResult<AsyncCall, ?>) input;
+
+				resume(context, result.metadata().getKey());
+
+				Functions.FunctionContext functionContext = Functions.FunctionContext
+						.parseFrom(result.metadata().getFunctionContext());
+
+				onAsyncResult(context, functionContext, result);
 			} else {
 				LOG.error(context.self() + " unknown message received: " + input);
 			}
@@ -73,6 +94,61 @@ public class Base extends Sync implements StatefulFunction {
 	public void invoke(FunctionContext functionContext) throws Exception {
 	}
 
+	/**
+	 * prefetch ids read together with function document
+	 **
+	 * @param context         Context
+	 * @param functionContext FunctionContext
+	 */
+	protected Collection<String> prefetch(Context context, Functions.FunctionContext functionContext)
+			throws Exception {
+		return Collections.emptyList();
+	}
+
+	/**
+	 * registerAsync continue with onAsyncResult when future completes, reply
+	 * waits for it
+	 **
+	 * @param context         Context
+	 * @param functionContext FunctionContext
+	 * @param future          CompletableFuture
+	 */
+	protected <T> void registerAsync(Context context, Functions.FunctionContext functionContext,
+			CompletableFuture<T> future) {
+		AsyncCall call = new AsyncCall(await(context), functionContext.toByteArray(), context.caller());
+		context.registerAsyncOperation(call, future);
+	}
+
+	/**
+	 * onAsyncResult continuation of registerAsync
+	 **
+	 * @param context         Context
+	 * @param functionContext FunctionContext
+	 * @param result          AsyncOperationResult
+	 */
+	protected void onAsyncResult(Context context, Functions.FunctionContext functionContext,
+			AsyncOperationResult<AsyncCall, ?> result) throws Exception {
+	}
+
+	/**
+	 * asyncValue value of async operation, throws its failure
+	 **
+	 * @param result AsyncOperationResult
+	 */
+	protected static java.lang.Object asyncValue(AsyncOperationResult<AsyncCall, ?> result) throws Exception {
+		if (result.failure()) {
+			Throwable throwable = result.throwable();
+			if (throwable instanceof CompletionException && throwable.getCause() != null) {
+				throwable = throwable.getCause();
+			}
+			if (throwable instanceof Exception) {
+				throw (Exception) throwable;
+			}
+			throw new Exception(throwable);
+		}
+		return result.value();
+	}
+
 	/**
 	 * CreateFunctionContext function
 	 **
@@ -11,6 +11,7 @@ import org.apache.flink.statefun.sdk.annotations.Persisted;
 import org.apache.flink.statefun.sdk.reqreply.generated.TypedValue;
 import org.apache.flink.statefun.sdk.state.PersistedTable;
 import org.listware.core.cmdb.RegisterMessage;
+import org.listware.core.cmdb.RegisterMessageState;
 import org.listware.io.utils.TypedValueDeserializer;
 import org.listware.io.utils.Constants.Namespaces;
 import org.listware.sdk.Functions;
@@ -29,15 +30,17 @@ public class Register extends Base {
 	public static final String TYPE = "register.system.functions.root";
 	public static final FunctionType FUNCTION_TYPE = new FunctionType(Namespaces.INTERNAL, TYPE);
 
-	private static final String MESSAGES_TABLE = "messages-table";
-	private static final String STATE_TABLE = "types-state-table";
+	private static final String MESSAGES_TABLE = "messages-table-v2";
+	// pojo table before versioned serializers, see Sync.migrate
+	private static final String LEGACY_MESSAGES_TABLE = "messages-table";
 
 	@Persisted
-	private PersistedTable<String, RegisterMessage> messagesTable = PersistedTable.of(MESSAGES_TABLE, String.class,
-			RegisterMessage.class);
+	private PersistedTable<String, RegisterMessageState> messagesTable = PersistedTable.of(MESSAGES_TABLE,
+			String.class, RegisterMessageState.class, expiration());
 
 	@Persisted
-	private PersistedTable<String, Boolean> stateTable = PersistedTable.of(STATE_TABLE, String.class, Boolean.class);
+	private PersistedTable<String, RegisterMessage> legacyMessagesTable = PersistedTable.of(LEGACY_MESSAGES_TABLE,
+			String.class, RegisterMessage.class);
 
 	public Register() {
 		super(TYPE, TYPE);
@@ -53,7 +56,7 @@ public class Register extends Base {
 		}
 		Core.RegisterMessage registerMessage = Core.RegisterMessage.parseFrom(functionContext.getValue());
 
-		RegisterMessage message = new RegisterMessage(registerMessage);
+		RegisterMessageState message = new RegisterMessageState(registerMessage);
 		messagesTable.set(this.key, message);
 
 		registerNext(context);
@@ -61,7 +64,6 @@ public class Register extends Base {
 
 	private void registerRouter(Context context, Functions.FunctionContext.Builder builder) throws Exception {
 		Result.ReplyResult replyResult = replyResult(context);
-		stateTable.set(replyResult.getKey(), true);
 
 		Functions.FunctionContext functionContext = builder.build();
 
@@ -80,7 +82,6 @@ public class Register extends Base {
 	private void registerBuilder(Context context, FunctionType functionType, Functions.FunctionContext.Builder builder)
 			throws Exception {
 		Result.ReplyResult replyResult = replyResult(context);
-		stateTable.set(replyResult.getKey(), true);
 
 		Functions.FunctionContext functionContext = builder.setReplyResult(replyResult).build();
 		TypedValue typedValue = TypedValueDeserializer.fromMessageLite(functionContext);
@@ -131,19 +132,42 @@ public class Register extends Base {
 	protected void onResult(Context context, Result.FunctionResult functionResult) throws Exception {
 		super.onResult(context, functionResult);
 
-		String key = functionResult.getReplyEgress().getKey();
+		registerNext(context);
+	}
 
-		stateTable.remove(key);
+	@Override
+	protected void onTimeout(Context context, String key) throws Exception {
+		super.onTimeout(context, key);
 
-		registerNext(context);
+		// rest of registration is dropped
+		messagesTable.remove(key);
+	}
+
+	@Override
+	protected void migrate(String key) {
+		super.migrate(key);
+		if (!legacyState) {
+			return;
+		}
+
+		RegisterMessage message = legacyMessagesTable.get(key);
+		if (message != null) {
+			legacyMessagesTable.remove(key);
+			messagesTable.set(key, RegisterMessageState.of(message));
+		}
 	}
 
 	@Override
 	protected void onReply(Context context) throws Exception {
-		RegisterMessage message = messagesTable.get(this.key);
+		RegisterMessageState message = messagesTable.get(this.key);
+
+		// replied or timed out
+		if (message == null) {
+			return;
+		}
 
 		// wait all answers
-		if (stateTable.keys().iterator().hasNext()) {
+		if (pending(this.key) > 0) {
 			return;
 		}
 
@@ -167,7 +191,7 @@ public class Register extends Base {
 	}
 
 	private void registerTypes(Context context) throws Exception {
-		RegisterMessage message = messagesTable.get(this.key);
+		RegisterMessageState message = messagesTable.get(this.key);
 
 		for (Core.RegisterTypeMessage registerMessage : message.listTypes()) {
 			registerType(context, registerMessage);
@@ -177,7 +201,7 @@ public class Register extends Base {
 	}
 
 	private void registerObjects(Context context) throws Exception {
-		RegisterMessage message = messagesTable.get(this.key);
+		RegisterMessageState message = messagesTable.get(this.key);
 
 		for (Core.RegisterObjectMessage registerMessage : message.listObjects()) {
 			registerObject(context, registerMessage);
@@ -187,7 +211,7 @@ public class Register extends Base {
 	}
 
 	private void registerLinks(Context context) throws Exception {
-		RegisterMessage message = messagesTable.get(this.key);
+		RegisterMessageState message = messagesTable.get(this.key);
 
 		for (Core.RegisterLinkMessage registerMessage : message.listLinks()) {
 			registerLink(context, registerMessage);
@@ -197,9 +221,13 @@ public class Register extends Base {
 	}
 
 	private void registerNext(Context context) throws Exception {
-		RegisterMessage message = messagesTable.get(this.key);
+		RegisterMessageState message = messagesTable.get(this.key);
+
+		if (message == null) {
+			return;
+		}
 
-		if (stateTable.keys().iterator().hasNext()) {
+		if (pending(this.key) > 0) {
 			return;
 		}
 
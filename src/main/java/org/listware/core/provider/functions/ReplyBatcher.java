@@ -0,0 +1,197 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.provider.functions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.flink.statefun.sdk.Context;
+import org.apache.flink.statefun.sdk.FunctionType;
+import org.apache.flink.statefun.sdk.StatefulFunction;
+import org.apache.flink.statefun.sdk.annotations.Persisted;
+import org.apache.flink.statefun.sdk.egress.generated.KafkaProducerRecord;
+import org.apache.flink.statefun.sdk.reqreply.generated.TypedValue;
+import org.apache.flink.statefun.sdk.state.PersistedAppendingBuffer;
+import org.apache.flink.statefun.sdk.state.PersistedValue;
+import org.listware.core.utils.ReplyBatch;
+import org.listware.core.utils.Settings;
+import org.listware.io.functions.result.Egress;
+import org.listware.io.utils.Constants;
+import org.listware.io.utils.Constants.Namespaces;
+import org.listware.sdk.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * Reply batcher, collects egress replies of one topic shard (id
+ * '$topic/$shard') and sends them as one ReplyBatch record every
+ * 'listware.sync.reply-batch.interval-ms' or
+ * 'listware.sync.reply-batch.max-size' replies. Only topics listed in
+ * 'listware.sync.reply-batch.topics' are batched, their readers must unbatch
+ * with ReplyBatch.results, EgressReader does not. Batch that can't be sent
+ * goes out reply by reply, replies are dropped only once sent
+ **
+ */
+public class ReplyBatcher implements StatefulFunction {
+	@SuppressWarnings("unused")
+	private static final Logger LOG = LoggerFactory.getLogger(ReplyBatcher.class);
+
+	public static final String TYPE = "reply-batcher.system.functions.root";
+
+	public static final FunctionType FUNCTION_TYPE = new FunctionType(Namespaces.INTERNAL, TYPE);
+
+	public static final String TOPICS = "listware.sync.reply-batch.topics";
+	public static final String INTERVAL = "listware.sync.reply-batch.interval-ms";
+	public static final String MAX_SIZE = "listware.sync.reply-batch.max-size";
+	public static final String SHARDS = "listware.sync.reply-batch.shards";
+	// job parallelism, default of shards
+	public static final String PARALLELISM = "parallelism.default";
+
+	private static final String FLUSH_TYPENAME = "listware/reply-batch.flush";
+
+	private static final String REPLIES_BUFFER = "replies-buffer";
+	private static final String REPLIES_COUNT = "replies-count";
+	private static final String FLUSH_SCHEDULED = "flush-scheduled";
+
+	@Persisted
+	private PersistedAppendingBuffer<Result.FunctionResult> repliesBuffer = PersistedAppendingBuffer
+			.of(REPLIES_BUFFER, Result.FunctionResult.class);
+
+	@Persisted
+	private PersistedValue<Integer> repliesCount = PersistedValue.of(REPLIES_COUNT, Integer.class);
+
+	@Persisted
+	private PersistedValue<Boolean> flushScheduled = PersistedValue.of(FLUSH_SCHEDULED, Boolean.class);
+
+	private long interval = Settings.getLong(INTERVAL, 100);
+	private int maxSize = Settings.getInt(MAX_SIZE, 256);
+
+	/**
+	 * isEnabled replies to topic are batched
+	 **
+	 * @param topic string
+	 */
+	public static boolean isEnabled(String topic) {
+		for (String batched : Settings.getString(TOPICS, "").split(",")) {
+			batched = batched.trim();
+			if (!batched.isEmpty() && batched.equals(topic)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * id of batcher for reply, replies of one topic are spread over
+	 * 'listware.sync.reply-batch.shards' batchers, by default as many as
+	 * 'parallelism.default'
+	 **
+	 * @param topic string
+	 * @param key   string
+	 */
+	public static String id(String topic, String key) {
+		int shards = Math.max(1, Settings.getInt(SHARDS, Settings.getInt(PARALLELISM, 1)));
+		return topic + "/" + Math.floorMod(key.hashCode(), shards);
+	}
+
+	@Override
+	public void invoke(Context context, java.lang.Object input) {
+		try {
+			if (!(input instanceof TypedValue)) {
+				throw new IllegalArgumentException("unknown message received " + input);
+			}
+
+			TypedValue typedValue = (TypedValue) input;
+			if (typedValue.getTypename().equals(FLUSH_TYPENAME)) {
+				flushScheduled.clear();
+				flush(context);
+			} else if (typedValue.getTypename().equals(Constants.RESULT_MESSAGE_TYPENAME)) {
+				append(context, Result.FunctionResult.parseFrom(typedValue.getValue()));
+			} else {
+				LOG.error(context.self() + " unknown type received: " + typedValue.getTypename());
+			}
+		} catch (Exception e) {
+			LOG.error(context.self() + " " + e.getLocalizedMessage());
+		}
+	}
+
+	private void append(Context context, Result.FunctionResult functionResult) {
+		repliesBuffer.append(functionResult);
+
+		int count = repliesCount.getOrDefault(0) + 1;
+		repliesCount.set(count);
+
+		if (count >= maxSize) {
+			flush(context);
+			return;
+		}
+
+		// timer keeps running after size flush, next replies are sent by it
+		schedule(context);
+	}
+
+	private void schedule(Context context) {
+		if (!flushScheduled.getOrDefault(false)) {
+			flushScheduled.set(true);
+
+			TypedValue typedValue = TypedValue.newBuilder().setTypename(FLUSH_TYPENAME).setHasValue(false).build();
+			context.sendAfter(Duration.ofMillis(interval), context.self(), typedValue);
+		}
+	}
+
+	private void flush(Context context) {
+		int count = repliesCount.getOrDefault(0);
+		if (count == 0) {
+			return;
+		}
+
+		String id = context.self().id();
+		int shard = id.lastIndexOf('/');
+		String topic = id.substring(0, shard);
+
+		try {
+			send(context, topic, ReplyBatch.key(id.substring(shard + 1)), ReplyBatch.encode(repliesBuffer.view()));
+
+			LOG.debug(context.self() + ": sent batch of " + count + " replies");
+		} catch (Exception e) {
+			LOG.error(context.self() + " batch of " + count + " replies not sent, sending one by one: "
+					+ e.getLocalizedMessage());
+
+			// replies that can't be sent either stay for next flush
+			List<Result.FunctionResult> unsent = new ArrayList<>();
+			for (Result.FunctionResult functionResult : repliesBuffer.view()) {
+				try {
+					send(context, topic, functionResult.getReplyEgress().getKey(), functionResult.toByteString());
+				} catch (Exception single) {
+					LOG.error(context.self() + " " + single.getLocalizedMessage());
+					unsent.add(functionResult);
+				}
+			}
+
+			if (!unsent.isEmpty()) {
+				repliesBuffer.replaceWith(unsent);
+				repliesCount.set(unsent.size());
+				schedule(context);
+				return;
+			}
+		}
+
+		repliesBuffer.clear();
+		repliesCount.clear();
+	}
+
+	private static void send(Context context, String topic, String key, ByteString value) {
+		KafkaProducerRecord kafkaProducerRecord = KafkaProducerRecord.newBuilder().setTopic(topic).setKey(key)
+				.setValueBytes(value).build();
+
+		TypedValue typedValue = TypedValue.newBuilder().setValue(kafkaProducerRecord.toByteString())
+				.setTypename(Constants.RESULT_MESSAGE_TYPENAME).setHasValue(true).build();
+		context.send(Egress.EGRESS, typedValue);
+	}
+}
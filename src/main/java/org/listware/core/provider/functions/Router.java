@@ -4,14 +4,10 @@ package org.listware.core.provider.functions;
 
 import org.apache.flink.statefun.sdk.Context;
 import org.apache.flink.statefun.sdk.FunctionType;
-import org.apache.flink.statefun.sdk.reqreply.generated.TypedValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.listware.io.grpc.QDSLClient;
-import org.listware.io.utils.TypedValueDeserializer;
 import org.listware.io.utils.Constants.Namespaces;
 import org.listware.sdk.Functions;
-import org.listware.sdk.Result;
 import org.listware.sdk.pbcmdb.pbqdsl.QDSL;
 
 /**
@@ -26,8 +22,6 @@ public class Router extends Base {
 
 	public static final FunctionType FUNCTION_TYPE = new FunctionType(Namespaces.INTERNAL, TYPE);
 
-	private QDSLClient client = new QDSLClient();
-
 	public Router() {
 		super(TYPE, TYPE);
 	}
@@ -36,24 +30,18 @@ public class Router extends Base {
 	public void invoke(Context context, Functions.FunctionContext functionContext) throws Exception {
 		QDSL.Options options = QDSL.Options.newBuilder().setId(true).build();
 
-		QDSL.Elements elements = client.qdsl(context.self().id(), options);
-
-		Functions.FunctionContext.Builder builder = Functions.FunctionContext.parseFrom(functionContext.getValue())
-				.toBuilder();
-
-		for (QDSL.Element element : elements.getElementsList()) {
-			Result.ReplyResult replyResult = replyResult(context);
+		QDSL.Elements elements = cmdb.qdsl(context.self().id(), options);
 
-			Functions.FunctionContext newFunctionContext = builder.setReplyResult(replyResult).setId(element.getId())
-					.build();
+		Functions.FunctionContext template = Functions.FunctionContext.parseFrom(functionContext.getValue());
 
-			String namespace = newFunctionContext.getFunctionType().getNamespace();
-			String type = newFunctionContext.getFunctionType().getType();
-			FunctionType functionType = new FunctionType(namespace, type);
-
-			TypedValue typedValue = TypedValueDeserializer.fromMessageLite(newFunctionContext);
+		// very large fan-outs reply through aggregator tree
+		if (Aggregator.isEnabled(elements.getElementsCount())) {
+			Aggregator.fanOut(context, template, elements.getElementsList(), this::replyResult);
+			return;
+		}
 
-			context.send(functionType, newFunctionContext.getId(), typedValue);
+		for (QDSL.Element element : elements.getElementsList()) {
+			Aggregator.send(context, template, element, this::replyResult);
 		}
 	}
 
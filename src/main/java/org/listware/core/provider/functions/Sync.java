@@ -2,7 +2,7 @@
 
 package org.listware.core.provider.functions;
 
-import java.util.Iterator;
+import java.time.Duration;
 import java.util.UUID;
 
 import org.apache.flink.statefun.sdk.Address;
@@ -10,8 +10,12 @@ import org.apache.flink.statefun.sdk.Context;
 import org.apache.flink.statefun.sdk.annotations.Persisted;
 import org.apache.flink.statefun.sdk.egress.generated.KafkaProducerRecord;
 import org.apache.flink.statefun.sdk.reqreply.generated.TypedValue;
+import org.apache.flink.statefun.sdk.state.Expiration;
 import org.apache.flink.statefun.sdk.state.PersistedTable;
 import org.listware.core.utils.ErrorContainer;
+import org.listware.core.utils.ErrorContainerState;
+import org.listware.core.utils.ReplyContainer;
+import org.listware.core.utils.Settings;
 import org.listware.io.functions.result.Egress;
 import org.listware.io.functions.result.EgressReader;
 import org.listware.io.utils.Constants;
@@ -20,24 +24,61 @@ import org.listware.sdk.Result;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.protobuf.ByteString;
+
 public class Sync {
 	@SuppressWarnings("unused")
 	private static final Logger LOG = LoggerFactory.getLogger(Sync.class);
 
+	// string table keeps its name, expiration is none unless configured
 	private static final String RESULT_TABLE = "result-table";
-	private static final String REPLY_TABLE = "reply-table";
-	private static final String ERRORS_TABLE = "errors-table";
+	// dedicated serializers, see utils.state
+	private static final String REPLY_TABLE = "reply-table-v2";
+	private static final String ERRORS_TABLE = "errors-table-v2";
+	private static final String PENDING_TABLE = "pending-table";
+
+	// pojo tables of requests in flight before versioned serializers, moved to
+	// new tables when request gets its next result
+	private static final String LEGACY_REPLY_TABLE = "reply-table";
+	private static final String LEGACY_ERRORS_TABLE = "errors-table";
+
+	// request not replied within this replies with timeout, its state expires
+	// after twice of it
+	public static final String EXPIRATION = "listware.sync.expiration-ms";
+
+	public static final String TIMEOUT_TYPENAME = "listware/sync.timeout";
+
+	// read legacy tables for requests without current errors entry, off once
+	// requests started before upgrade are done
+	public static final String LEGACY_STATE = "listware.sync.legacy-state";
+
+	protected final boolean legacyState = Settings.getBoolean(LEGACY_STATE, true);
+
+	@Persisted
+	private PersistedTable<String, ReplyContainer> replyTable = PersistedTable.of(REPLY_TABLE, String.class,
+			ReplyContainer.class, expiration());
+
+	@Persisted
+	private PersistedTable<String, ErrorContainerState> errorsTable = PersistedTable.of(ERRORS_TABLE, String.class,
+			ErrorContainerState.class, expiration());
 
 	@Persisted
-	private PersistedTable<String, EgressReader.ReplyResult> replyTable = PersistedTable.of(REPLY_TABLE, String.class,
-			EgressReader.ReplyResult.class);
+	private PersistedTable<String, EgressReader.ReplyResult> legacyReplyTable = PersistedTable.of(LEGACY_REPLY_TABLE,
+			String.class, EgressReader.ReplyResult.class);
 
 	@Persisted
-	private PersistedTable<String, ErrorContainer> errorsTable = PersistedTable.of(ERRORS_TABLE, String.class,
-			ErrorContainer.class);
+	private PersistedTable<String, ErrorContainer> legacyErrorsTable = PersistedTable.of(LEGACY_ERRORS_TABLE,
+			String.class, ErrorContainer.class);
 
+	// child result key -> request key
 	@Persisted
-	private PersistedTable<String, String> resultTable = PersistedTable.of(RESULT_TABLE, String.class, String.class);
+	private PersistedTable<String, String> resultTable = PersistedTable.of(RESULT_TABLE, String.class, String.class,
+			expiration());
+
+	// request key -> count of outstanding child results and async operations
+	@Persisted
+	private PersistedTable<String, Integer> pendingTable = PersistedTable.of(PENDING_TABLE, String.class,
+			Integer.class, expiration());
 
 	private EgressReader egressReader = null;
 
@@ -57,6 +98,7 @@ public class Sync {
 		String key = replyResult.getKey();
 
 		resultTable.set(key, this.key);
+		addPending(this.key, 1);
 
 		return replyResult;
 	}
@@ -73,13 +115,15 @@ public class Sync {
 
 			this.key = replyResult.getKey();
 
-			replyTable.set(this.key, replyResult);
+			replyTable.set(this.key, new ReplyContainer(replyResult));
 		} else {
 			UUID uuid = UUID.randomUUID();
 			key = uuid.toString();
 		}
-		errorContainer = new ErrorContainer();
-		errorsTable.set(this.key, errorContainer);
+		errorContainer = new ErrorContainerState();
+		errorsTable.set(this.key, ErrorContainerState.of(errorContainer));
+
+		scheduleTimeout(context, this.key);
 	}
 
 	protected void onResult(Context context, Result.FunctionResult functionResult) throws Exception {
@@ -88,21 +132,62 @@ public class Sync {
 		this.key = resultTable.get(key);
 		resultTable.remove(key);
 
-		errorContainer = errorsTable.get(this.key);
+		if (this.key != null) {
+			addPending(this.key, -1);
+			errorContainer = errors(this.key);
+		} else {
+			errorContainer = errorsTable.get(this.key);
+		}
 
 		if (!functionResult.getComplete()) {
 			if (errorContainer != null) {
 				errorContainer.appendAll(functionResult.getErrorsList());
-				errorsTable.set(this.key, errorContainer);
+				errorsTable.set(this.key, ErrorContainerState.of(errorContainer));
 			}
 		}
 	}
 
+	/**
+	 * await keep reply open until async operation completes
+	 **
+	 * @param context Context
+	 */
+	protected String await(Context context) {
+		UUID uuid = UUID.randomUUID();
+		String asyncKey = uuid.toString();
+
+		resultTable.set(asyncKey, this.key);
+		addPending(this.key, 1);
+
+		return asyncKey;
+	}
+
+	/**
+	 * resume restore reply of completed async operation
+	 **
+	 * @param context  Context
+	 * @param asyncKey string
+	 */
+	protected void resume(Context context, String asyncKey) {
+		String key = resultTable.get(asyncKey);
+		resultTable.remove(asyncKey);
+
+		if (key == null) {
+			UUID uuid = UUID.randomUUID();
+			key = uuid.toString();
+			errorContainer = errorsTable.get(key);
+		} else {
+			addPending(key, -1);
+			errorContainer = errors(key);
+		}
+		this.key = key;
+	}
+
 	protected void onException(Context context, String message) {
 		errorContainer = errorsTable.get(this.key);
 		if (errorContainer != null) {
 			errorContainer.append(message);
-			errorsTable.set(this.key, errorContainer);
+			errorsTable.set(this.key, ErrorContainerState.of(errorContainer));
 		}
 	}
 
@@ -112,24 +197,157 @@ public class Sync {
 			return;
 		}
 
-		Iterator<String> it = resultTable.values().iterator();
-
-		while (it.hasNext()) {
-			if (it.next().equals(this.key)) {
-				return;
-			}
+		// wait all child results
+		if (pending(this.key) > 0) {
+			return;
 		}
 
 		errorsTable.remove(this.key);
+		cancelTimeout(context, this.key);
 
-		EgressReader.ReplyResult replyResult = replyTable.get(this.key);
-		if (replyResult == null) {
+		ReplyContainer replyContainer = replyTable.get(this.key);
+		if (replyContainer == null) {
 			return;
 		}
 
 		replyTable.remove(this.key);
 
-		reply(context, replyResult, errorContainer);
+		reply(context, replyContainer.toReplyResult(), errorContainer);
+	}
+
+	/**
+	 * pending count of outstanding child results and async operations
+	 **
+	 * @param key string
+	 */
+	protected int pending(String key) {
+		Integer pending = pendingTable.get(key);
+		return pending == null ? 0 : pending;
+	}
+
+	private void addPending(String key, int delta) {
+		int pending = pending(key) + delta;
+		if (pending > 0) {
+			pendingTable.set(key, pending);
+		} else {
+			pendingTable.remove(key);
+		}
+	}
+
+	// one timeout per request, cancelled when request replies
+	private static void scheduleTimeout(Context context, String key) {
+		long expiration = Settings.getLong(EXPIRATION, 0);
+		if (expiration <= 0) {
+			return;
+		}
+
+		TypedValue typedValue = TypedValue.newBuilder().setValue(ByteString.copyFromUtf8(key))
+				.setTypename(TIMEOUT_TYPENAME).setHasValue(true).build();
+		context.sendAfter(Duration.ofMillis(expiration), context.self(), typedValue, timeoutToken(key));
+	}
+
+	private static void cancelTimeout(Context context, String key) {
+		if (Settings.getLong(EXPIRATION, 0) > 0) {
+			context.cancelDelayedMessage(timeoutToken(key));
+		}
+	}
+
+	private static String timeoutToken(String key) {
+		return TIMEOUT_TYPENAME + "/" + key;
+	}
+
+	/**
+	 * onTimeout reply with timeout error if request still waits for results
+	 **
+	 * @param context Context
+	 * @param key     string
+	 */
+	protected void onTimeout(Context context, String key) throws Exception {
+		this.key = key;
+
+		errorContainer = errors(key);
+		ReplyContainer replyContainer = replyTable.get(key);
+
+		pendingTable.remove(key);
+		replyTable.remove(key);
+		errorsTable.remove(key);
+
+		// already replied
+		if (replyContainer == null || errorContainer == null) {
+			return;
+		}
+
+		LOG.warn(context.self() + " " + key + " timed out");
+
+		errorContainer.append("timeout after " + Settings.getLong(EXPIRATION, 0) + " ms");
+		reply(context, replyContainer.toReplyResult(), errorContainer);
+	}
+
+	/**
+	 * errors of request. Requests started after upgrade and migrated ones have
+	 * current errors entry, only requests without it read legacy tables
+	 **
+	 * @param key string
+	 */
+	private ErrorContainer errors(String key) {
+		ErrorContainer errorContainer = errorsTable.get(key);
+		if (errorContainer == null && legacyState) {
+			migrate(key);
+			errorContainer = errorsTable.get(key);
+		}
+		return errorContainer;
+	}
+
+	/**
+	 * migrate move state of request started before versioned serializers to
+	 * current tables
+	 **
+	 * @param key string
+	 */
+	protected void migrate(String key) {
+		if (!legacyState) {
+			return;
+		}
+
+		EgressReader.ReplyResult replyResult = legacyReplyTable.get(key);
+		ErrorContainer errorContainer = legacyErrorsTable.get(key);
+		if (replyResult == null && errorContainer == null) {
+			return;
+		}
+
+		if (replyResult != null) {
+			legacyReplyTable.remove(key);
+			replyTable.set(key, new ReplyContainer(replyResult));
+		}
+
+		if (errorContainer != null) {
+			legacyErrorsTable.remove(key);
+			errorsTable.set(key, ErrorContainerState.of(errorContainer));
+		}
+
+		// request has no pending counter yet, count its outstanding results once
+		int pending = 0;
+		for (String request : resultTable.values()) {
+			if (key.equals(request)) {
+				pending++;
+			}
+		}
+		if (pending > 0) {
+			pendingTable.set(key, pending);
+		}
+	}
+
+	/**
+	 * expiration of sync state, twice 'listware.sync.expiration-ms' (0 -
+	 * never), state outlives timeout of request so that it can reply
+	 **
+	 */
+	protected static Expiration expiration() {
+		long expiration = Settings.getLong(EXPIRATION, 0);
+		if (expiration <= 0) {
+			return Expiration.none();
+		}
+		return Expiration.expireAfterWriting(Duration.ofMillis(2 * expiration));
 	}
 
 	protected void reply(Context context, EgressReader.ReplyResult replyResult, ErrorContainer errorContainer)
@@ -144,6 +362,13 @@ public class Sync {
 
 			// send result to caller
 			context.send(address, typedValue);
+		} else if (ReplyBatcher.isEnabled(replyResult.getTopic())) {
+			TypedValue typedValue = TypedValue.newBuilder().setValue(functionResult.toByteString())
+					.setTypename(Constants.RESULT_MESSAGE_TYPENAME).setHasValue(true).build();
+
+			// one egress record per batch of topic
+			context.send(ReplyBatcher.FUNCTION_TYPE, ReplyBatcher.id(replyResult.getTopic(), replyResult.getKey()),
+					typedValue);
 		} else {
 			KafkaProducerRecord kafkaProducerRecord = KafkaProducerRecord.newBuilder().setTopic(replyResult.getTopic())
 					.setKey(replyResult.getKey()).setValueBytes(functionResult.toByteString()).build();
@@ -67,14 +67,16 @@ public class AdvancedLink extends LinkContext {
 		LinkDocument document = LinkDocument.deserialize(message.getPayload());
 		document.setId(functionContext.getFlinkContext().self().id());
 
-		document = cmdb.updateLink(functionContext.getFlinkContext(), document);
+		document = cmdb.updateLink(functionContext.getFlinkContext(), (LinkDocument) functionContext.getDocument(),
+				document);
 	}
 
 	private void replace(FunctionContext functionContext, Core.LinkMessage message) throws Exception {
 		LinkDocument document = LinkDocument.deserialize(message.getPayload());
 		document.setId(functionContext.getFlinkContext().self().id());
 
-		document = cmdb.replaceLink(functionContext.getFlinkContext(), document);
+		document = cmdb.replaceLink(functionContext.getFlinkContext(), (LinkDocument) functionContext.getDocument(),
+				document);
 	}
 
 	private void delete(FunctionContext functionContext, Core.LinkMessage message) throws Exception {
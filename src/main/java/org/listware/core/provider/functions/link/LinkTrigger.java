@@ -7,18 +7,13 @@ package org.listware.core.provider.functions.link;
 
 import org.apache.flink.statefun.sdk.Context;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import org.apache.flink.statefun.sdk.FunctionType;
 import org.apache.flink.statefun.sdk.reqreply.generated.TypedValue;
 import org.listware.core.FunctionContext;
-import org.listware.core.cmdb.Trigger;
+import org.listware.core.cmdb.TriggerIndex;
 import org.listware.core.documents.LinkDocument;
 import org.listware.core.documents.ObjectDocument;
 import org.listware.core.utils.exceptions.NoLinkException;
-import org.listware.core.utils.exceptions.TriggerNotFoundException;
-import org.listware.core.utils.exceptions.UnknownMethodException;
 import org.listware.io.utils.TypedValueDeserializer;
 import org.listware.io.utils.Constants.Namespaces;
 import org.listware.sdk.Functions;
@@ -36,6 +31,10 @@ public class LinkTrigger extends LinkContext {
 
 	public static final FunctionType FUNCTION_TYPE = new FunctionType(Namespaces.INTERNAL, TYPE);
 
+	// id is set on dispatch
+	private final TriggerIndex index = new TriggerIndex(
+			(trigger, method) -> CreateFunctionContext("", trigger.getNamespace(), trigger.getType()));
+
 	public LinkTrigger() {
 		super(TYPE, TYPE);
 	}
@@ -56,8 +55,6 @@ public class LinkTrigger extends LinkContext {
 			onTrigger(functionContext.getFlinkContext(), typesDocument, document.getTo(), message.getMethod());
 		} catch (NoLinkException ex) {
 			LOG.debug(ex.getLocalizedMessage());
-		} catch (TriggerNotFoundException ex) {
-			LOG.debug(ex.getLocalizedMessage());
 		}
 
 		String functionTypeKey = "types/function";
@@ -114,38 +111,7 @@ public class LinkTrigger extends LinkContext {
 	}
 
 	private void onTrigger(Context context, LinkDocument link, String id, Core.Method method) throws Exception {
-		Map<String, Trigger> triggers = new HashMap<>();
-		try {
-			switch (method) {
-			case CREATE:
-				triggers = Trigger.getByType(link, Trigger.CREATE);
-				break;
-
-			case UPDATE:
-				triggers = Trigger.getByType(link, Trigger.UPDATE);
-				break;
-
-			case DELETE:
-				triggers = Trigger.getByType(link, Trigger.DELETE);
-				break;
-
-			default:
-				throw new UnknownMethodException(method);
-			}
-
-			for (Trigger trigger : triggers.values()) {
-				executeTrigger(context, id, trigger);
-			}
-		} catch (TriggerNotFoundException ignore) {
-		}
-	}
-
-	private void executeTrigger(Context context, String id, Trigger trigger) throws Exception {
-		Functions.FunctionContext pbFunctionContext = CreateFunctionContext(id, trigger.getNamespace(),
-				trigger.getType());
-		TypedValue typedValue = TypedValueDeserializer.fromMessageLite(pbFunctionContext);
-		FunctionType functionType = new FunctionType(trigger.getNamespace(), trigger.getType());
-		context.send(functionType, pbFunctionContext.getId(), typedValue);
+		index.dispatch(context, link, method, id);
 	}
 
 	private void executeTrigger(Context context, String id, String namespace, String type) throws Exception {
@@ -5,6 +5,10 @@
 
 package org.listware.core.provider.functions.object;
 
+import java.util.Collection;
+import java.util.Collections;
+
+import org.apache.flink.statefun.sdk.Context;
 import org.apache.flink.statefun.sdk.FunctionType;
 import org.apache.flink.statefun.sdk.reqreply.generated.TypedValue;
 import org.slf4j.Logger;
@@ -40,6 +44,23 @@ public class Link extends ObjectContext {
 		super(TYPE, TYPE);
 	}
 
+	// target of link is read with object
+	@Override
+	protected Collection<String> prefetch(Context context, Functions.FunctionContext functionContext)
+			throws Exception {
+		Core.LinkMessage message = Core.LinkMessage.parseFrom(functionContext.getValue());
+
+		switch (message.getMethod()) {
+		case CREATE:
+		case CREATE_TRIGGER:
+		case DELETE_TRIGGER:
+			return Collections.singletonList(message.getTo());
+
+		default:
+			return Collections.emptyList();
+		}
+	}
+
 	@Override
 	public void invoke(FunctionContext functionContext) throws Exception {
 		Core.LinkMessage message = Core.LinkMessage.parseFrom(functionContext.getFunctionContext().getValue());
@@ -75,14 +96,21 @@ public class Link extends ObjectContext {
 	}
 
 	private void create(FunctionContext functionContext, Core.LinkMessage message) throws Exception {
-		cmdb.checkFrom(functionContext.getDocument(), message.getName());
-
-		ObjectDocument document = cmdb.readDocument(message.getTo());
+		// name is checked by createLink
+		ObjectDocument document = to(functionContext, message);
 
 		cmdb.createLink(functionContext.getFlinkContext(), functionContext.getDocument(), document, message.getType(),
 				message.getName(), message.getPayload());
 	}
 
+	private ObjectDocument to(FunctionContext functionContext, Core.LinkMessage message) throws Exception {
+		ObjectDocument document = functionContext.getPrefetched(message.getTo());
+		if (document == null) {
+			document = cmdb.readDocument(message.getTo());
+		}
+		return document;
+	}
+
 	private void advanced(FunctionContext functionContext, Core.LinkMessage message) throws Exception {
 		Result.ReplyResult replyResult = replyResult(functionContext.getFlinkContext());
 
@@ -103,7 +131,7 @@ public class Link extends ObjectContext {
 		Core.Trigger trigger = Core.Trigger.parseFrom(message.getPayload());
 
 		ObjectDocument from = functionContext.getDocument();
-		ObjectDocument to = cmdb.readDocument(message.getTo());
+		ObjectDocument to = to(functionContext, message);
 
 		LinkDocument document = null;
 		try {
@@ -128,7 +156,7 @@ public class Link extends ObjectContext {
 		Core.Trigger trigger = Core.Trigger.parseFrom(message.getPayload());
 
 		ObjectDocument from = functionContext.getDocument();
-		ObjectDocument to = cmdb.readDocument(message.getTo());
+		ObjectDocument to = to(functionContext, message);
 
 		LinkDocument document = cmdb.readLinkDocumentByTo(from.getId(), to.getId());
 		document = Trigger.delete(document, trigger);
@@ -82,7 +82,7 @@ public class Object extends ObjectContext {
 		ObjectDocument document = ObjectDocument.deserialize(message.getPayload());
 		document.setId(functionContext.getFlinkContext().self().id());
 
-		document = cmdb.updateObject(functionContext.getFlinkContext(), document);
+		document = cmdb.updateObject(functionContext.getFlinkContext(), functionContext.getDocument(), document);
 	}
 
 	private void replace(FunctionContext functionContext, Core.ObjectMessage message) throws Exception {
@@ -93,7 +93,7 @@ public class Object extends ObjectContext {
 		ObjectDocument document = ObjectDocument.deserialize(message.getPayload());
 		document.setId(functionContext.getFlinkContext().self().id());
 
-		document = cmdb.replaceObject(functionContext.getFlinkContext(), document);
+		document = cmdb.replaceObject(functionContext.getFlinkContext(), functionContext.getDocument(), document);
 	}
 
 	private void delete(FunctionContext functionContext) throws Exception {
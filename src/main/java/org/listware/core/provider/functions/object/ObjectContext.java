@@ -2,12 +2,21 @@
 
 package org.listware.core.provider.functions.object;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.flink.statefun.sdk.Address;
+import org.apache.flink.statefun.sdk.AsyncOperationResult;
 import org.apache.flink.statefun.sdk.Context;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.listware.core.FunctionContext;
+import org.listware.core.cmdb.AsyncCmdb;
 import org.listware.core.documents.ObjectDocument;
+import org.listware.core.provider.functions.AsyncCall;
 import org.listware.core.provider.functions.Base;
 import org.listware.sdk.Functions;
 
@@ -26,11 +35,75 @@ public class ObjectContext extends Base {
 
 	@Override
 	public void invoke(Context context, Functions.FunctionContext pbFunctionContext) throws Exception {
-		ObjectDocument document = cmdb.readDocument(context.self().id());
+		String id = context.self().id();
+		Collection<String> prefetch = prefetch(context, pbFunctionContext);
+
+		if (AsyncCmdb.isEnabled()) {
+			// continue in onAsyncResult, task thread does not wait for cmdb
+			if (prefetch.isEmpty()) {
+				registerAsync(context, pbFunctionContext, asyncCmdb.readDocument(id));
+			} else {
+				registerAsync(context, pbFunctionContext, asyncCmdb.readDocuments(ids(id, prefetch)));
+			}
+			return;
+		}
+
+		FunctionContext functionContext;
+		if (prefetch.isEmpty()) {
+			ObjectDocument document = cmdb.readDocument(id);
+			functionContext = new FunctionContext(context, document, pbFunctionContext);
+		} else {
+			functionContext = prefetched(context, pbFunctionContext, cmdb.readDocuments(ids(id, prefetch)),
+					context.caller());
+		}
+
+		invoke(functionContext);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	protected void onAsyncResult(Context context, Functions.FunctionContext pbFunctionContext,
+			AsyncOperationResult<AsyncCall, ?> result) throws Exception {
+		String id = context.self().id();
+		Address caller = result.metadata().toCaller();
 
-		FunctionContext functionContext = new FunctionContext(context, document, pbFunctionContext);
+		FunctionContext functionContext;
+		if (result.unknown()) {
+			// restored after failure, read again
+			functionContext = new FunctionContext(context, cmdb.readDocument(id), pbFunctionContext, caller);
+		} else {
+			java.lang.Object value = asyncValue(result);
+			if (value instanceof Map) {
+				functionContext = prefetched(context, pbFunctionContext, (Map<String, ObjectDocument>) value,
+						caller);
+			} else {
+				functionContext = new FunctionContext(context, (ObjectDocument) value, pbFunctionContext, caller);
+			}
+		}
 
 		invoke(functionContext);
 	}
 
+	private static List<String> ids(String id, Collection<String> prefetch) {
+		List<String> ids = new ArrayList<>();
+		ids.add(id);
+		ids.addAll(prefetch);
+		return ids;
+	}
+
+	private FunctionContext prefetched(Context context, Functions.FunctionContext pbFunctionContext,
+			Map<String, ObjectDocument> documents, Address caller) throws Exception {
+		String id = context.self().id();
+
+		ObjectDocument document = (ObjectDocument) documents.get(id);
+		if (document == null) {
+			// read alone for the error
+			document = cmdb.readDocument(id);
+		}
+
+		FunctionContext functionContext = new FunctionContext(context, document, pbFunctionContext, caller);
+		functionContext.setPrefetched(documents);
+		return functionContext;
+	}
+
 }
@@ -28,7 +28,7 @@ public class ObjectTrigger extends ObjectContext {
 	public void invoke(FunctionContext functionContext) throws Exception {
 		Core.ObjectMessage message = Core.ObjectMessage.parseFrom(functionContext.getFunctionContext().getValue());
 
-		String typeId = cmdb.getTypeId(functionContext.getFlinkContext().self().id());
+		String typeId = cmdb.getTypeId(functionContext.getDocument());
 		Functions.FunctionContext pbFunctionContext = TypeTrigger.Trigger(typeId, message.getMethod());
 
 		TypedValue typedValue = TypedValueDeserializer.fromMessageLite(pbFunctionContext);
@@ -5,6 +5,10 @@
 
 package org.listware.core.provider.functions.object;
 
+import java.util.Collection;
+import java.util.Collections;
+
+import org.apache.flink.statefun.sdk.Context;
 import org.apache.flink.statefun.sdk.FunctionType;
 
 import com.google.protobuf.ByteString;
@@ -37,6 +41,21 @@ public class Type extends ObjectContext {
 		super(TYPE, TYPE);
 	}
 
+	// parent of child is read with type
+	@Override
+	protected Collection<String> prefetch(Context context, Functions.FunctionContext functionContext)
+			throws Exception {
+		if (context.caller() == null) {
+			return Collections.emptyList();
+		}
+
+		Core.TypeMessage message = Core.TypeMessage.parseFrom(functionContext.getValue());
+		if (message.getMethod() != Core.Method.CREATE_CHILD) {
+			return Collections.emptyList();
+		}
+		return Collections.singletonList(context.caller().id());
+	}
+
 	@Override
 	public void invoke(FunctionContext functionContext) throws Exception {
 		// TODO only create from 'types.root' or work with 'type'
@@ -131,8 +150,11 @@ public class Type extends ObjectContext {
 		ObjectDocument document = ObjectDocument.deserialize(message.getPayload());
 		ObjectDocument type = functionContext.getDocument();
 
-		if (functionContext.getFlinkContext().caller() != null) {
-			ObjectDocument parent = cmdb.readDocument(functionContext.getFlinkContext().caller().id());
+		if (functionContext.getCaller() != null) {
+			ObjectDocument parent = functionContext.getPrefetched(functionContext.getCaller().id());
+			if (parent == null) {
+				parent = cmdb.readDocument(functionContext.getCaller().id());
+			}
 			document = cmdb.createObject(functionContext.getFlinkContext(), type, parent, document, message.getName());
 		} else {
 			document = cmdb.createObject(functionContext.getFlinkContext(), type, document);
@@ -5,16 +5,9 @@
 
 package org.listware.core.provider.functions.object;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import org.apache.flink.statefun.sdk.FunctionType;
-import org.apache.flink.statefun.sdk.reqreply.generated.TypedValue;
 import org.listware.core.FunctionContext;
-import org.listware.core.cmdb.Trigger;
-import org.listware.core.utils.exceptions.TriggerNotFoundException;
-import org.listware.core.utils.exceptions.UnknownMethodException;
-import org.listware.io.utils.TypedValueDeserializer;
+import org.listware.core.cmdb.TriggerIndex;
 import org.listware.io.utils.Constants.Namespaces;
 import org.listware.sdk.Functions;
 import org.listware.sdk.pbcmdb.Core;
@@ -29,6 +22,10 @@ public class TypeTrigger extends ObjectContext {
 
 	public static final FunctionType FUNCTION_TYPE = new FunctionType(Namespaces.INTERNAL, TYPE);
 
+	// id is set on dispatch
+	private final TriggerIndex index = new TriggerIndex(
+			(trigger, method) -> Exec("", trigger.getNamespace(), trigger.getType(), method));
+
 	public TypeTrigger() {
 		super(TYPE, TYPE);
 	}
@@ -37,39 +34,8 @@ public class TypeTrigger extends ObjectContext {
 	public void invoke(FunctionContext functionContext) throws Exception {
 		Core.TypeMessage message = Core.TypeMessage.parseFrom(functionContext.getFunctionContext().getValue());
 
-		Map<String, Trigger> triggers = new HashMap<>();
-
-		try {
-			switch (message.getMethod()) {
-			case CREATE:
-				triggers = Trigger.getByType(functionContext.getDocument(), Trigger.CREATE);
-				break;
-
-			case UPDATE:
-				triggers = Trigger.getByType(functionContext.getDocument(), Trigger.UPDATE);
-				break;
-
-			case DELETE:
-				triggers = Trigger.getByType(functionContext.getDocument(), Trigger.DELETE);
-				break;
-
-			default:
-				throw new UnknownMethodException(message.getMethod());
-			}
-
-			for (Trigger trigger : triggers.values()) {
-				Functions.FunctionContext pbFunctionContext = Exec(functionContext.getFlinkContext().caller().id(),
-						trigger.getNamespace(), trigger.getType(), message.getMethod());
-
-				TypedValue typedValue = TypedValueDeserializer.fromMessageLite(pbFunctionContext);
-
-				FunctionType functionType = new FunctionType(trigger.getNamespace(), trigger.getType());
-
-				functionContext.getFlinkContext().send(functionType, functionContext.getFlinkContext().caller().id(),
-						typedValue);
-			}
-		} catch (TriggerNotFoundException ignore) {
-		}
+		index.dispatch(functionContext.getFlinkContext(), functionContext.getDocument(), message.getMethod(),
+				functionContext.getCaller().id());
 	}
 
 	/**
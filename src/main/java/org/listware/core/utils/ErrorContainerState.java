@@ -0,0 +1,39 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.utils;
+
+import java.util.ArrayList;
+
+import org.apache.flink.api.common.typeinfo.TypeInfo;
+import org.listware.core.utils.state.ErrorContainerSerializer;
+
+/**
+ * ErrorContainer kept in state with versioned serializer. ErrorContainer
+ * itself stays pojo, tables written before are read with it
+ **
+ */
+@TypeInfo(ErrorContainerSerializer.Factory.class)
+public class ErrorContainerState extends ErrorContainer {
+
+	public ErrorContainerState() {
+		// POJO
+	}
+
+	/**
+	 * of container as state value, copy unless it is one
+	 **
+	 * @param errorContainer ErrorContainer
+	 */
+	public static ErrorContainerState of(ErrorContainer errorContainer) {
+		if (errorContainer instanceof ErrorContainerState) {
+			return (ErrorContainerState) errorContainer;
+		}
+		ErrorContainerState state = new ErrorContainerState();
+		state.setComplete(errorContainer.getComplete());
+		state.setErrors(new ArrayList<>(errorContainer.getErrors()));
+		return state;
+	}
+}
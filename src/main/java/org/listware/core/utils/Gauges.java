@@ -0,0 +1,130 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.utils;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process wide gauges, exported over JMX as 'org.listware.core:type=$group'
+ * (task manager JMX reporter and JMX scrapers read them). Statefun functions
+ * only get counters, process wide components (caches, limiters) have no
+ * function context
+ **
+ */
+public class Gauges implements DynamicMBean {
+	@SuppressWarnings("unused")
+	private static final Logger LOG = LoggerFactory.getLogger(Gauges.class);
+
+	private static final String DOMAIN = "org.listware.core";
+
+	private final String group;
+	private final Map<String, Supplier<Number>> gauges = new ConcurrentHashMap<>();
+
+	private Gauges(String group) {
+		this.group = group;
+	}
+
+	/**
+	 * register gauges of group, group registered before is replaced
+	 **
+	 * @param group string
+	 */
+	public static Gauges register(String group) {
+		Gauges gauges = new Gauges(group);
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(DOMAIN, "type", group);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(gauges, name);
+		} catch (Exception e) {
+			LOG.warn("gauges " + group + " not exported: " + e.getLocalizedMessage());
+		}
+		return gauges;
+	}
+
+	/**
+	 * gauge add gauge to group
+	 **
+	 * @param name     string
+	 * @param supplier Supplier
+	 */
+	public Gauges gauge(String name, Supplier<Number> supplier) {
+		gauges.put(name, supplier);
+		return this;
+	}
+
+	/**
+	 * value current value of gauge
+	 **
+	 * @param name string
+	 */
+	public Number value(String name) {
+		Supplier<Number> supplier = gauges.get(name);
+		return supplier == null ? null : supplier.get();
+	}
+
+	@Override
+	public Object getAttribute(String attribute) throws AttributeNotFoundException {
+		Supplier<Number> supplier = gauges.get(attribute);
+		if (supplier == null) {
+			throw new AttributeNotFoundException(attribute);
+		}
+		return supplier.get();
+	}
+
+	@Override
+	public AttributeList getAttributes(String[] attributes) {
+		AttributeList list = new AttributeList();
+		for (String attribute : attributes) {
+			Supplier<Number> supplier = gauges.get(attribute);
+			if (supplier != null) {
+				list.add(new Attribute(attribute, supplier.get()));
+			}
+		}
+		return list;
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo() {
+		MBeanAttributeInfo[] attributes = gauges.entrySet().stream()
+				.map(entry -> new MBeanAttributeInfo(entry.getKey(), entry.getValue().get().getClass().getName(),
+						entry.getKey(), true, false, false))
+				.toArray(MBeanAttributeInfo[]::new);
+		return new MBeanInfo(getClass().getName(), group, attributes, null, null, null);
+	}
+
+	@Override
+	public void setAttribute(Attribute attribute) {
+		throw new UnsupportedOperationException("gauges are read only");
+	}
+
+	@Override
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(String actionName, Object[] params, String[] signature) {
+		throw new UnsupportedOperationException("gauges have no operations");
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.listware.sdk.Result;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * Envelope of batched egress replies. Record key is 'listware-batch/' and
+ * shard of batcher, value is length delimited FunctionResult messages, every
+ * result keeps own reply key in reply egress. Readers of batched topics get
+ * replies of any record with results
+ **
+ */
+public class ReplyBatch {
+	public static final String KEY_PREFIX = "listware-batch/";
+
+	private ReplyBatch() {
+	}
+
+	/**
+	 * key batch record key of batcher shard, batches of one shard stay in one
+	 * partition
+	 **
+	 * @param shard string
+	 */
+	public static String key(String shard) {
+		return KEY_PREFIX + shard;
+	}
+
+	/**
+	 * isBatch record with key is batch envelope
+	 **
+	 * @param key string
+	 */
+	public static boolean isBatch(String key) {
+		return key != null && key.startsWith(KEY_PREFIX);
+	}
+
+	/**
+	 * encode results into envelope
+	 **
+	 * @param results Iterable
+	 */
+	public static ByteString encode(Iterable<Result.FunctionResult> results) throws IOException {
+		ByteString.Output output = ByteString.newOutput();
+		for (Result.FunctionResult result : results) {
+			result.writeDelimitedTo(output);
+		}
+		return output.toByteString();
+	}
+
+	/**
+	 * results replies of record, one for plain reply record
+	 **
+	 * @param key   string
+	 * @param value ByteString
+	 */
+	public static List<Result.FunctionResult> results(String key, ByteString value) throws IOException {
+		if (isBatch(key)) {
+			return decode(value);
+		}
+		return Collections.singletonList(Result.FunctionResult.parseFrom(value));
+	}
+
+	/**
+	 * decode results of envelope
+	 **
+	 * @param value ByteString
+	 */
+	public static List<Result.FunctionResult> decode(ByteString value) throws IOException {
+		List<Result.FunctionResult> results = new ArrayList<>();
+
+		InputStream input = value.newInput();
+		Result.FunctionResult result;
+		while ((result = Result.FunctionResult.parseDelimitedFrom(input)) != null) {
+			results.add(result);
+		}
+		return results;
+	}
+}
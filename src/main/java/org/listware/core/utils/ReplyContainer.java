@@ -0,0 +1,51 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.utils;
+
+import org.apache.flink.api.common.typeinfo.TypeInfo;
+import org.listware.core.utils.state.ReplyContainerSerializer;
+import org.listware.io.functions.result.EgressReader;
+import org.listware.sdk.Result;
+
+/**
+ * Reply address of request kept in state until all results are collected
+ **
+ */
+@TypeInfo(ReplyContainerSerializer.Factory.class)
+public class ReplyContainer {
+	private Result.ReplyResult replyResult = Result.ReplyResult.getDefaultInstance();
+	private boolean isEgress = false;
+
+	public ReplyContainer() {
+	}
+
+	public ReplyContainer(EgressReader.ReplyResult replyResult) {
+		this.replyResult = replyResult.toProto();
+		this.isEgress = Boolean.TRUE.equals(replyResult.getIsEgress());
+	}
+
+	public Result.ReplyResult getReplyResult() {
+		return replyResult;
+	}
+
+	public void setReplyResult(Result.ReplyResult replyResult) {
+		this.replyResult = replyResult;
+	}
+
+	public boolean getIsEgress() {
+		return isEgress;
+	}
+
+	public void setIsEgress(boolean isEgress) {
+		this.isEgress = isEgress;
+	}
+
+	public EgressReader.ReplyResult toReplyResult() {
+		EgressReader.ReplyResult result = new EgressReader.ReplyResult(replyResult);
+		result.setIsEgress(isEgress);
+		return result;
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Module settings, statefun global configuration first, then environment
+ * ('listware.cmdb.payload-format' -> 'LISTWARE_CMDB_PAYLOAD_FORMAT')
+ **
+ */
+public class Settings {
+	@SuppressWarnings("unused")
+	private static final Logger LOG = LoggerFactory.getLogger(Settings.class);
+
+	private static final Map<String, String> values = new ConcurrentHashMap<>();
+
+	private Settings() {
+	}
+
+	public static void configure(Map<String, String> configuration) {
+		values.putAll(configuration);
+	}
+
+	public static String getString(String key, String defaultValue) {
+		String value = values.get(key);
+		if (value == null) {
+			value = System.getenv(key.toUpperCase().replace('.', '_').replace('-', '_'));
+		}
+		if (value == null || value.isEmpty()) {
+			return defaultValue;
+		}
+		return value;
+	}
+
+	public static int getInt(String key, int defaultValue) {
+		return Integer.parseInt(getString(key, String.valueOf(defaultValue)));
+	}
+
+	public static long getLong(String key, long defaultValue) {
+		return Long.parseLong(getString(key, String.valueOf(defaultValue)));
+	}
+
+	public static boolean getBoolean(String key, boolean defaultValue) {
+		return Boolean.parseBoolean(getString(key, String.valueOf(defaultValue)));
+	}
+}
@@ -0,0 +1,14 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.utils.exceptions;
+
+public class DeadlineExceededException extends Exception {
+	private static final long serialVersionUID = 1L;
+
+	public DeadlineExceededException(String operation, long deadline) {
+		super(String.format("cmdb %s exceeded deadline of %d ms", operation, deadline));
+	}
+}
@@ -0,0 +1,14 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.utils.exceptions;
+
+public class LimitExceededException extends Exception {
+	private static final long serialVersionUID = 1L;
+
+	public LimitExceededException(int limit) {
+		super(String.format("cmdb concurrency limit %d exceeded", limit));
+	}
+}
@@ -0,0 +1,14 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.utils.exceptions;
+
+public class UniqueViolationException extends Exception {
+	private static final long serialVersionUID = 1L;
+
+	public UniqueViolationException(String collection, Throwable cause) {
+		super(String.format("unique constraint of %s violated", collection), cause);
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.utils.state;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.flink.api.common.typeinfo.TypeInfoFactory;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.listware.core.utils.ErrorContainerState;
+
+/**
+ * ErrorContainerState serializer. Format v1: complete, errors count, errors
+ **
+ */
+public class ErrorContainerSerializer extends StateSerializer<ErrorContainerState> {
+	private static final long serialVersionUID = 1L;
+
+	private static final int VERSION = 1;
+
+	public static class Factory extends TypeInfoFactory<ErrorContainerState> {
+		@Override
+		public TypeInformation<ErrorContainerState> createTypeInfo(Type type,
+				Map<String, TypeInformation<?>> parameters) {
+			return new StateTypeInfo<>(ErrorContainerState.class, ErrorContainerSerializer.class);
+		}
+	}
+
+	@Override
+	public int getCurrentVersion() {
+		return VERSION;
+	}
+
+	@Override
+	public ErrorContainerState createInstance() {
+		return new ErrorContainerState();
+	}
+
+	@Override
+	protected void write(ErrorContainerState value, DataOutputView out) throws IOException {
+		out.writeBoolean(value.getComplete() == null || value.getComplete());
+
+		List<String> errors = value.getErrors();
+		out.writeInt(errors.size());
+		for (String error : errors) {
+			writeString(error, out);
+		}
+	}
+
+	@Override
+	protected ErrorContainerState read(int version, DataInputView in) throws IOException {
+		if (version != 1) {
+			throw unknownVersion(version);
+		}
+
+		ErrorContainerState value = new ErrorContainerState();
+		value.setComplete(in.readBoolean());
+
+		int size = in.readInt();
+		List<String> errors = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			errors.add(readString(in));
+		}
+		value.setErrors(errors);
+		return value;
+	}
+}
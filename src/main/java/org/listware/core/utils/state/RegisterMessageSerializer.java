@@ -0,0 +1,65 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.utils.state;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+import org.apache.flink.api.common.typeinfo.TypeInfoFactory;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.listware.core.cmdb.RegisterMessageState;
+
+/**
+ * RegisterMessageState serializer. Format v1: types, objects and links as
+ * count and length prefixed protobuf messages
+ **
+ */
+public class RegisterMessageSerializer extends StateSerializer<RegisterMessageState> {
+	private static final long serialVersionUID = 1L;
+
+	private static final int VERSION = 1;
+
+	public static class Factory extends TypeInfoFactory<RegisterMessageState> {
+		@Override
+		public TypeInformation<RegisterMessageState> createTypeInfo(Type type,
+				Map<String, TypeInformation<?>> parameters) {
+			return new StateTypeInfo<>(RegisterMessageState.class, RegisterMessageSerializer.class);
+		}
+	}
+
+	@Override
+	public int getCurrentVersion() {
+		return VERSION;
+	}
+
+	@Override
+	public RegisterMessageState createInstance() {
+		return new RegisterMessageState();
+	}
+
+	@Override
+	protected void write(RegisterMessageState value, DataOutputView out) throws IOException {
+		writeBytesList(value.getTypes(), out);
+		writeBytesList(value.getObjects(), out);
+		writeBytesList(value.getLinks(), out);
+	}
+
+	@Override
+	protected RegisterMessageState read(int version, DataInputView in) throws IOException {
+		if (version != 1) {
+			throw unknownVersion(version);
+		}
+
+		RegisterMessageState value = new RegisterMessageState();
+		value.setTypes(readBytesList(in));
+		value.setObjects(readBytesList(in));
+		value.setLinks(readBytesList(in));
+		return value;
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.utils.state;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+import org.apache.flink.api.common.typeinfo.TypeInfoFactory;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.listware.core.utils.ReplyContainer;
+import org.listware.sdk.Result;
+
+/**
+ * ReplyContainer state serializer. Format v1: egress flag, length prefixed
+ * protobuf ReplyResult
+ **
+ */
+public class ReplyContainerSerializer extends StateSerializer<ReplyContainer> {
+	private static final long serialVersionUID = 1L;
+
+	private static final int VERSION = 1;
+
+	public static class Factory extends TypeInfoFactory<ReplyContainer> {
+		@Override
+		public TypeInformation<ReplyContainer> createTypeInfo(Type type, Map<String, TypeInformation<?>> parameters) {
+			return new StateTypeInfo<>(ReplyContainer.class, ReplyContainerSerializer.class);
+		}
+	}
+
+	@Override
+	public int getCurrentVersion() {
+		return VERSION;
+	}
+
+	@Override
+	public ReplyContainer createInstance() {
+		return new ReplyContainer();
+	}
+
+	@Override
+	protected void write(ReplyContainer value, DataOutputView out) throws IOException {
+		out.writeBoolean(value.getIsEgress());
+		writeBytes(value.getReplyResult().toByteArray(), out);
+	}
+
+	@Override
+	protected ReplyContainer read(int version, DataInputView in) throws IOException {
+		if (version != 1) {
+			throw unknownVersion(version);
+		}
+
+		ReplyContainer value = new ReplyContainer();
+		value.setIsEgress(in.readBoolean());
+		value.setReplyResult(Result.ReplyResult.parseFrom(readBytes(in)));
+		return value;
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.utils.state;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.types.StringValue;
+import org.apache.flink.util.InstantiationUtil;
+
+/**
+ * Hand-written versioned serializer of function state value. Values are
+ * written in current format version, snapshot keeps version of written state,
+ * restored serializer reads old format and state is migrated on restore.
+ * Implementations must be stateless and have public no-arg constructor, read
+ * must handle every version it has written and reject others
+ **
+ */
+public abstract class StateSerializer<T> extends TypeSerializer<T> {
+	private static final long serialVersionUID = 1L;
+
+	// format version values are read with
+	private int version;
+
+	protected StateSerializer() {
+		this.version = getCurrentVersion();
+	}
+
+	/**
+	 * getCurrentVersion format version written by this serializer
+	 **
+	 */
+	public abstract int getCurrentVersion();
+
+	protected abstract void write(T value, DataOutputView out) throws IOException;
+
+	protected abstract T read(int version, DataInputView in) throws IOException;
+
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * withVersion fresh serializer of same class reading format version
+	 **
+	 * @param version int
+	 */
+	StateSerializer<T> withVersion(int version) {
+		@SuppressWarnings("unchecked")
+		StateSerializer<T> serializer = InstantiationUtil.instantiate(getClass());
+		serializer.version = version;
+		return serializer;
+	}
+
+	@Override
+	public boolean isImmutableType() {
+		return false;
+	}
+
+	@Override
+	public TypeSerializer<T> duplicate() {
+		return withVersion(version);
+	}
+
+	@Override
+	public T copy(T from) {
+		if (from == null) {
+			return null;
+		}
+		try {
+			DataOutputSerializer out = new DataOutputSerializer(64);
+			write(from, out);
+			return read(getCurrentVersion(), new DataInputDeserializer(out.getSharedBuffer(), 0, out.length()));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public T copy(T from, T reuse) {
+		return copy(from);
+	}
+
+	@Override
+	public int getLength() {
+		return -1;
+	}
+
+	@Override
+	public void serialize(T record, DataOutputView target) throws IOException {
+		write(record, target);
+	}
+
+	@Override
+	public T deserialize(DataInputView source) throws IOException {
+		return read(version, source);
+	}
+
+	@Override
+	public T deserialize(T reuse, DataInputView source) throws IOException {
+		return deserialize(source);
+	}
+
+	@Override
+	public void copy(DataInputView source, DataOutputView target) throws IOException {
+		serialize(deserialize(source), target);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj != null && obj.getClass() == getClass() && ((StateSerializer<?>) obj).version == version;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * getClass().hashCode() + version;
+	}
+
+	@Override
+	public TypeSerializerSnapshot<T> snapshotConfiguration() {
+		return new StateSerializerSnapshot<>(this);
+	}
+
+	protected IOException unknownVersion(int version) {
+		return new IOException(getClass().getSimpleName() + ": unknown format version " + version);
+	}
+
+	protected static void writeString(String value, DataOutputView out) throws IOException {
+		StringValue.writeString(value, out);
+	}
+
+	protected static String readString(DataInputView in) throws IOException {
+		return StringValue.readString(in);
+	}
+
+	protected static void writeBytes(byte[] value, DataOutputView out) throws IOException {
+		out.writeInt(value.length);
+		out.write(value);
+	}
+
+	protected static byte[] readBytes(DataInputView in) throws IOException {
+		byte[] value = new byte[in.readInt()];
+		in.readFully(value);
+		return value;
+	}
+
+	protected static void writeBytesList(List<byte[]> values, DataOutputView out) throws IOException {
+		out.writeInt(values.size());
+		for (byte[] value : values) {
+			writeBytes(value, out);
+		}
+	}
+
+	protected static List<byte[]> readBytesList(DataInputView in) throws IOException {
+		int size = in.readInt();
+		List<byte[]> values = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			values.add(readBytes(in));
+		}
+		return values;
+	}
+}
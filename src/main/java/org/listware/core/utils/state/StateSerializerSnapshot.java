@@ -0,0 +1,76 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.utils.state;
+
+import java.io.IOException;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.TypeSerializerSchemaCompatibility;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.util.InstantiationUtil;
+
+/**
+ * Snapshot of StateSerializer, keeps serializer class and format version of
+ * written state
+ **
+ */
+public class StateSerializerSnapshot<T> implements TypeSerializerSnapshot<T> {
+	private static final int SNAPSHOT_VERSION = 1;
+
+	private Class<? extends StateSerializer<T>> serializerClass;
+	private int version;
+
+	public StateSerializerSnapshot() {
+		// read by flink
+	}
+
+	@SuppressWarnings("unchecked")
+	StateSerializerSnapshot(StateSerializer<T> serializer) {
+		this.serializerClass = (Class<? extends StateSerializer<T>>) serializer.getClass();
+		this.version = serializer.getCurrentVersion();
+	}
+
+	@Override
+	public int getCurrentVersion() {
+		return SNAPSHOT_VERSION;
+	}
+
+	@Override
+	public void writeSnapshot(DataOutputView out) throws IOException {
+		out.writeUTF(serializerClass.getName());
+		out.writeInt(version);
+	}
+
+	@Override
+	public void readSnapshot(int readVersion, DataInputView in, ClassLoader userCodeClassLoader) throws IOException {
+		serializerClass = InstantiationUtil.resolveClassByName(in, userCodeClassLoader);
+		version = in.readInt();
+	}
+
+	@Override
+	public TypeSerializer<T> restoreSerializer() {
+		return InstantiationUtil.instantiate(serializerClass).withVersion(version);
+	}
+
+	@Override
+	public TypeSerializerSchemaCompatibility<T> resolveSchemaCompatibility(TypeSerializer<T> newSerializer) {
+		if (newSerializer.getClass() != serializerClass) {
+			return TypeSerializerSchemaCompatibility.incompatible();
+		}
+
+		int current = ((StateSerializer<T>) newSerializer).getCurrentVersion();
+		if (version == current) {
+			return TypeSerializerSchemaCompatibility.compatibleAsIs();
+		}
+		if (version < current) {
+			// read with restored serializer, written in new format
+			return TypeSerializerSchemaCompatibility.compatibleAfterMigration();
+		}
+		return TypeSerializerSchemaCompatibility.incompatible();
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.utils.state;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.util.InstantiationUtil;
+
+/**
+ * Type information of state value with StateSerializer, bound to value class
+ * with '@TypeInfo' so PersistedTable values skip pojo and kryo serialization
+ **
+ */
+public class StateTypeInfo<T> extends TypeInformation<T> {
+	private static final long serialVersionUID = 1L;
+
+	private final Class<T> typeClass;
+	private final Class<? extends StateSerializer<T>> serializerClass;
+
+	public StateTypeInfo(Class<T> typeClass, Class<? extends StateSerializer<T>> serializerClass) {
+		this.typeClass = typeClass;
+		this.serializerClass = serializerClass;
+	}
+
+	@Override
+	public boolean isBasicType() {
+		return false;
+	}
+
+	@Override
+	public boolean isTupleType() {
+		return false;
+	}
+
+	@Override
+	public int getArity() {
+		return 1;
+	}
+
+	@Override
+	public int getTotalFields() {
+		return 1;
+	}
+
+	@Override
+	public Class<T> getTypeClass() {
+		return typeClass;
+	}
+
+	@Override
+	public boolean isKeyType() {
+		return false;
+	}
+
+	@Override
+	public TypeSerializer<T> createSerializer(ExecutionConfig config) {
+		return InstantiationUtil.instantiate(serializerClass);
+	}
+
+	@Override
+	public String toString() {
+		return "StateTypeInfo<" + typeClass.getName() + ">";
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof StateTypeInfo && ((StateTypeInfo<?>) obj).typeClass == typeClass;
+	}
+
+	@Override
+	public int hashCode() {
+		return typeClass.hashCode();
+	}
+
+	@Override
+	public boolean canEqual(Object obj) {
+		return obj instanceof StateTypeInfo;
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.listware.core.documents.DocumentCodec;
+import org.listware.core.documents.ObjectDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jackson.JsonLoader;
+import com.google.protobuf.ByteString;
+
+/**
+ * DocumentCodec against previous JsonLoader + convertValue read and per call
+ * ObjectMapper write
+ **
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DocumentCodecBenchmark {
+	private static final TypeReference<Map<String, Object>> MAP = new TypeReference<Map<String, Object>>() {
+	};
+
+	@Param({ "10", "1000" })
+	public int fields;
+
+	private ByteString payload;
+	private ObjectDocument document;
+
+	@Setup
+	public void setup() throws Exception {
+		Map<String, Object> properties = new LinkedHashMap<>();
+		for (int i = 0; i < fields; i++) {
+			Map<String, Object> nested = new LinkedHashMap<>();
+			nested.put("value", i * 0.5);
+			nested.put("enabled", i % 2 == 0);
+
+			List<Object> tags = new ArrayList<>();
+			tags.add("tag-" + i);
+			tags.add(i);
+
+			properties.put("field-" + i, i % 3 == 0 ? nested : i % 3 == 1 ? tags : "value-" + i);
+		}
+
+		document = new ObjectDocument("key");
+		document.setId("objects/key");
+		document.setProperties(properties);
+
+		payload = ByteString.copyFrom(new ObjectMapper().writeValueAsBytes(document));
+	}
+
+	@Benchmark
+	public Map<String, Object> readJsonLoader() throws Exception {
+		JsonNode jsonNode = JsonLoader.fromString(payload.toStringUtf8());
+
+		ObjectMapper mapper = new ObjectMapper();
+		return mapper.convertValue(jsonNode, MAP);
+	}
+
+	@Benchmark
+	public Map<String, Object> readCodec() throws Exception {
+		return DocumentCodec.read(payload);
+	}
+
+	@Benchmark
+	public ByteString writeObjectMapper() throws Exception {
+		ObjectMapper mapper = new ObjectMapper();
+		byte[] values = mapper.writeValueAsBytes(document);
+		return ByteString.copyFrom(values);
+	}
+
+	@Benchmark
+	public ByteString writeCodec() throws Exception {
+		return DocumentCodec.write(document);
+	}
+}
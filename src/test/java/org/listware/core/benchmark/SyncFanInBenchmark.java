@@ -0,0 +1,174 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.benchmark;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.flink.statefun.sdk.Address;
+import org.apache.flink.statefun.sdk.Context;
+import org.apache.flink.statefun.sdk.FunctionType;
+import org.apache.flink.statefun.sdk.io.EgressIdentifier;
+import org.apache.flink.statefun.sdk.metrics.Metrics;
+import org.apache.flink.statefun.sdk.state.PersistedTable;
+import org.listware.core.provider.functions.Sync;
+import org.listware.sdk.Functions;
+import org.listware.sdk.Result;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Fan-in of 'children' child replies spread over 'requests' concurrent
+ * requests of one function id: Sync pending counter against previous scan of
+ * result table values on every reply. Replies complete requests one after
+ * another, so the scan skips children of requests still waiting. Unbound
+ * persisted state is kept in memory, state backends pay more per scanned entry
+ **
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SyncFanInBenchmark {
+	private static final Address SELF = new Address(new FunctionType("benchmark", "sync"), "request");
+
+	@Param({ "1000", "10000" })
+	public int children;
+
+	@Param({ "1", "100" })
+	public int requests;
+
+	@Benchmark
+	public int pendingCounter() throws Exception {
+		FanIn sync = new FanIn();
+
+		List<String> keys = new ArrayList<>(children);
+		for (int r = 0; r < requests; r++) {
+			sync.init(CONTEXT);
+			for (int i = 0; i < children / requests; i++) {
+				keys.add(sync.child(CONTEXT));
+			}
+		}
+
+		int replies = 0;
+		for (String key : keys) {
+			sync.reply(CONTEXT, key);
+			replies++;
+		}
+		return replies + sync.pending();
+	}
+
+	@Benchmark
+	public int resultTableScan() {
+		PersistedTable<String, String> resultTable = PersistedTable.of("result-table", String.class, String.class);
+
+		List<String> keys = new ArrayList<>(children);
+		for (int r = 0; r < requests; r++) {
+			String request = UUID.randomUUID().toString();
+			for (int i = 0; i < children / requests; i++) {
+				String key = UUID.randomUUID().toString();
+				resultTable.set(key, request);
+				keys.add(key);
+			}
+		}
+
+		int waiting = 0;
+		for (String key : keys) {
+			String request = resultTable.get(key);
+			resultTable.remove(key);
+			// any result of request still outstanding
+			for (String value : resultTable.values()) {
+				if (value.equals(request)) {
+					waiting++;
+					break;
+				}
+			}
+		}
+		return waiting;
+	}
+
+	static class FanIn extends Sync {
+		FanIn() {
+			super("benchmark", "benchmark");
+		}
+
+		void init(Context context) throws Exception {
+			onInit(context, Functions.FunctionContext.getDefaultInstance());
+		}
+
+		// child registers like replyResult, without egress reader
+		String child(Context context) {
+			return await(context);
+		}
+
+		void reply(Context context, String key) throws Exception {
+			Result.FunctionResult functionResult = Result.FunctionResult.newBuilder()
+					.setReplyEgress(Result.ReplyResult.newBuilder().setKey(key)).setComplete(true).build();
+			onResult(context, functionResult);
+			onReply(context);
+		}
+
+		int pending() {
+			return pending(key);
+		}
+	}
+
+	// nothing leaves the function
+	private static final Context CONTEXT = new Context() {
+		@Override
+		public Address self() {
+			return SELF;
+		}
+
+		@Override
+		public Address caller() {
+			return null;
+		}
+
+		@Override
+		public void send(Address to, Object message) {
+		}
+
+		@Override
+		public <T> void send(EgressIdentifier<T> egress, T message) {
+		}
+
+		@Override
+		public void sendAfter(Duration delay, Address to, Object message) {
+		}
+
+		@Override
+		public void sendAfter(Duration delay, Address to, Object message, String cancellationToken) {
+		}
+
+		@Override
+		public void cancelDelayedMessage(String cancellationToken) {
+		}
+
+		@Override
+		public <M, T> void registerAsyncOperation(M metadata, CompletableFuture<T> future) {
+		}
+
+		@Override
+		public Metrics metrics() {
+			return null;
+		}
+	};
+}
@@ -0,0 +1,74 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.cmdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.listware.core.documents.DocumentCodec;
+import org.listware.core.documents.ObjectDocument;
+import org.listware.sdk.pbcmdb.Core;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * Smoke test against bootstrapped ArangoDB, runs when
+ * LISTWARE_CMDB_ARANGODB_HOST is set (see ArangoStorage for other settings)
+ **
+ */
+@EnabledIfEnvironmentVariable(named = "LISTWARE_CMDB_ARANGODB_HOST", matches = ".+")
+public class ArangoStorageTest {
+	private static final String COLLECTION = Cmdb.Collections.OBJECTS;
+
+	private static ArangoStorage storage;
+	private static ArangoStorage shared;
+
+	@BeforeAll
+	static void connect() {
+		storage = new ArangoStorage();
+		shared = new ArangoStorage();
+	}
+
+	@AfterAll
+	static void shutdown() throws Exception {
+		shared.shutdown();
+		storage.shutdown();
+	}
+
+	@Test
+	void readWrite() throws Exception {
+		String key = UUID.randomUUID().toString();
+		ByteString payload = ByteString.copyFromUtf8("{\"_key\":\"" + key + "\",\"name\":\"smoke\"}");
+
+		ObjectDocument created = ObjectDocument.lazy(storage.createVertex(COLLECTION, payload).getPayload());
+		try {
+			assertEquals(key, created.getKey());
+
+			Core.Response read = shared.readVertex(COLLECTION, key);
+			assertEquals("smoke", DocumentCodec.read(read.getPayload()).get("name"));
+
+			assertNull(storage.readVertexIfModified(COLLECTION, key, created.getRevision()));
+
+			String missing = UUID.randomUUID().toString();
+			List<Core.Response> responses = storage.readVertices(COLLECTION, Arrays.asList(missing, key));
+			assertTrue(responses.get(0).getPayload().isEmpty());
+			assertEquals(key, ObjectDocument.lazy(responses.get(1).getPayload()).getKey());
+		} finally {
+			storage.removeVertex(COLLECTION, key);
+		}
+
+		assertTrue(storage.readVertex(COLLECTION, key).getPayload().isEmpty());
+	}
+}
@@ -0,0 +1,31 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.cmdb;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import io.grpc.Status;
+
+public class ConcurrencyLimiterTest {
+
+	@Test
+	void overloadStatus() {
+		assertTrue(ConcurrencyLimiter.isOverload(Status.UNAVAILABLE.asRuntimeException()));
+		assertTrue(ConcurrencyLimiter.isOverload(Status.RESOURCE_EXHAUSTED.asException()));
+		assertTrue(ConcurrencyLimiter.isOverload(new RuntimeException(Status.DEADLINE_EXCEEDED.asRuntimeException())));
+	}
+
+	@Test
+	void notOverload() {
+		assertFalse(ConcurrencyLimiter.isOverload(Status.NOT_FOUND.asRuntimeException()));
+		assertFalse(ConcurrencyLimiter.isOverload(Status.ALREADY_EXISTS.asRuntimeException()));
+		// message is not a status
+		assertFalse(ConcurrencyLimiter.isOverload(new Exception("UNAVAILABLE: document locked")));
+	}
+}
@@ -0,0 +1,406 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.cmdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.listware.core.documents.DocumentCodec;
+import org.listware.core.documents.ObjectDocument;
+import org.listware.core.documents.entity.DocumentFields;
+import org.listware.core.utils.Settings;
+import org.listware.core.utils.exceptions.AlreadyLinkException;
+import org.listware.core.utils.exceptions.UniqueViolationException;
+import org.listware.sdk.pbcmdb.Core;
+import org.listware.sdk.pbcmdb.pbfinder.Finder;
+import org.listware.sdk.pbcmdb.pbqdsl.QDSL;
+
+import com.google.protobuf.ByteString;
+
+public class CreateObjectsTest {
+
+	// documents in memory, removed vertex takes its edges along
+	private static class MemoryStorage implements CmdbStorage {
+		private final boolean graphCreate;
+
+		private final Map<String, Map<String, Object>> vertices = new LinkedHashMap<>();
+		private final Map<String, Map<String, Object>> edges = new LinkedHashMap<>();
+
+		private final AtomicInteger lookups = new AtomicInteger();
+		private final AtomicInteger graphs = new AtomicInteger();
+
+		// edge with this name fails to insert
+		private String failing = null;
+
+		// storage can ensure unique index on links
+		private boolean uniqueIndex = false;
+
+		MemoryStorage(boolean graphCreate) {
+			this.graphCreate = graphCreate;
+		}
+
+		private static Core.Response response(Map<String, Object> document) throws Exception {
+			if (document == null) {
+				return Core.Response.newBuilder().setPayload(ByteString.EMPTY).build();
+			}
+			return Core.Response.newBuilder().setPayload(DocumentCodec.writeValue(document)).build();
+		}
+
+		private static Map<String, Object> stored(String collection, ByteString payload) throws Exception {
+			Map<String, Object> document = new HashMap<>(DocumentCodec.read(payload));
+			if (document.get(DocumentFields.KEY) == null) {
+				document.put(DocumentFields.KEY, UUID.randomUUID().toString());
+			}
+			document.put(DocumentFields.ID, collection + "/" + document.get(DocumentFields.KEY));
+			document.put(DocumentFields.REV, "1");
+			return document;
+		}
+
+		private synchronized Map<String, Object> insertEdge(String collection, ByteString payload) throws Exception {
+			Map<String, Object> edge = stored(collection, payload);
+			for (Map<String, Object> other : edges.values()) {
+				if (other.get(DocumentFields.FROM).equals(edge.get(DocumentFields.FROM))
+						&& other.get(DocumentFields.NAME).equals(edge.get(DocumentFields.NAME))) {
+					throw new UniqueViolationException(collection, null);
+				}
+			}
+			if (edge.get(DocumentFields.NAME).equals(failing)) {
+				throw new Exception("edge insert failed");
+			}
+			edges.put((String) edge.get(DocumentFields.ID), edge);
+			return edge;
+		}
+
+		private Finder.Response links(List<Map<String, Object>> links) throws Exception {
+			Finder.Response.Builder builder = Finder.Response.newBuilder();
+			for (Map<String, Object> link : links) {
+				builder.addLinks(Finder.Link.newBuilder().setPayload(DocumentCodec.writeValue(link)));
+			}
+			return builder.build();
+		}
+
+		synchronized void putVertex(String collection, String key) {
+			Map<String, Object> vertex = new HashMap<>();
+			vertex.put(DocumentFields.ID, collection + "/" + key);
+			vertex.put(DocumentFields.KEY, key);
+			vertex.put(DocumentFields.REV, "1");
+			vertices.put(collection + "/" + key, vertex);
+		}
+
+		synchronized void putEdge(String from, String to, String name) {
+			Map<String, Object> edge = new HashMap<>();
+			edge.put(DocumentFields.ID, "links/" + UUID.randomUUID());
+			edge.put(DocumentFields.FROM, from);
+			edge.put(DocumentFields.TO, to);
+			edge.put(DocumentFields.NAME, name);
+			edges.put((String) edge.get(DocumentFields.ID), edge);
+		}
+
+		synchronized int count(String collection) {
+			int count = 0;
+			for (String id : vertices.keySet()) {
+				if (id.startsWith(collection + "/")) {
+					count++;
+				}
+			}
+			return count;
+		}
+
+		synchronized List<Map<String, Object>> linksTo(String to) {
+			List<Map<String, Object>> links = new ArrayList<>();
+			for (Map<String, Object> edge : edges.values()) {
+				if (edge.get(DocumentFields.TO).equals(to)) {
+					links.add(edge);
+				}
+			}
+			return links;
+		}
+
+		@Override
+		public synchronized Core.Response createVertex(String collection, ByteString payload) throws Exception {
+			Map<String, Object> vertex = stored(collection, payload);
+			vertices.put((String) vertex.get(DocumentFields.ID), vertex);
+			return response(vertex);
+		}
+
+		@Override
+		public synchronized Core.Response readVertex(String collection, String key) throws Exception {
+			return response(vertices.get(collection + "/" + key));
+		}
+
+		@Override
+		public Core.Response updateVertex(String collection, String key, ByteString payload) throws Exception {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Core.Response replaceVertex(String collection, String key, ByteString payload) throws Exception {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public synchronized void removeVertex(String collection, String key) throws Exception {
+			String id = collection + "/" + key;
+			vertices.remove(id);
+			edges.values().removeIf(edge -> id.equals(edge.get(DocumentFields.FROM))
+					|| id.equals(edge.get(DocumentFields.TO)));
+		}
+
+		@Override
+		public Core.Response createEdge(String collection, ByteString payload) throws Exception {
+			return response(insertEdge(collection, payload));
+		}
+
+		@Override
+		public synchronized Core.Response readEdge(String collection, String key) throws Exception {
+			return response(edges.get(collection + "/" + key));
+		}
+
+		@Override
+		public Core.Response updateEdge(String collection, String key, ByteString payload) throws Exception {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Core.Response replaceEdge(String collection, String key, ByteString payload) throws Exception {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public synchronized void removeEdge(String collection, String key) throws Exception {
+			edges.remove(collection + "/" + key);
+		}
+
+		@Override
+		public Finder.Response findFrom(String from, String name) throws Exception {
+			return findFromNames(from, Arrays.asList(name));
+		}
+
+		@Override
+		public synchronized Finder.Response findFromNames(String from, Collection<String> names) throws Exception {
+			lookups.incrementAndGet();
+			List<Map<String, Object>> links = new ArrayList<>();
+			for (Map<String, Object> edge : edges.values()) {
+				if (from.equals(edge.get(DocumentFields.FROM)) && names.contains(edge.get(DocumentFields.NAME))) {
+					links.add(edge);
+				}
+			}
+			return links(links);
+		}
+
+		@Override
+		public Finder.Response findFromTo(String from, String to) throws Exception {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public QDSL.Elements qdsl(String query, QDSL.Options options) throws Exception {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean ensureUniqueIndex(String collection, String... fields) throws Exception {
+			return uniqueIndex;
+		}
+
+		@Override
+		public boolean hasGraphCreate() {
+			return graphCreate;
+		}
+
+		@Override
+		public synchronized List<Core.Response> createGraph(String vertexCollection, List<ByteString> vertices,
+				String edgeCollection, List<ByteString> edges) throws Exception {
+			graphs.incrementAndGet();
+
+			// all or nothing
+			Map<String, Map<String, Object>> savedVertices = new LinkedHashMap<>(this.vertices);
+			Map<String, Map<String, Object>> savedEdges = new LinkedHashMap<>(this.edges);
+
+			List<Core.Response> responses = new ArrayList<>();
+			try {
+				for (ByteString payload : vertices) {
+					responses.add(createVertex(vertexCollection, payload));
+				}
+				for (ByteString payload : edges) {
+					responses.add(createEdge(edgeCollection, payload));
+				}
+			} catch (Exception e) {
+				this.vertices.clear();
+				this.vertices.putAll(savedVertices);
+				this.edges.clear();
+				this.edges.putAll(savedEdges);
+				throw e;
+			}
+			return responses;
+		}
+
+		@Override
+		public void shutdown() throws InterruptedException {
+		}
+	}
+
+	private static ObjectDocument document(String collection, String key) {
+		ObjectDocument document = new ObjectDocument(key);
+		document.setId(collection + "/" + key);
+		return document;
+	}
+
+	private static MemoryStorage storage(boolean graphCreate) {
+		MemoryStorage storage = new MemoryStorage(graphCreate);
+		storage.putVertex("system", "objects");
+		storage.putVertex("types", "device");
+		storage.putVertex("objects", "parent");
+		return storage;
+	}
+
+	private static List<ObjectDocument> documents(int count) {
+		List<ObjectDocument> documents = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			ObjectDocument document = new ObjectDocument();
+			document.addAttribute("index", i);
+			documents.add(document);
+		}
+		return documents;
+	}
+
+	@Test
+	public void oneLookupOneInsert() throws Exception {
+		MemoryStorage storage = storage(true);
+		Cmdb cmdb = new Cmdb(storage);
+
+		List<String> names = Arrays.asList("a", "b", "c");
+		List<ObjectDocument> created = cmdb.createObjects(document("types", "device"),
+				document("objects", "parent"), documents(3), names);
+
+		assertEquals(1, storage.lookups.get());
+		assertEquals(1, storage.graphs.get());
+		assertEquals(3, created.size());
+		// parent, 3 created
+		assertEquals(4, storage.count("objects"));
+
+		for (int i = 0; i < created.size(); i++) {
+			ObjectDocument document = created.get(i);
+			String name = names.get(i);
+			assertNotNull(document.getId());
+			// type, objects and parent links
+			List<Map<String, Object>> links = storage.linksTo(document.getId());
+			assertEquals(3, links.size());
+			assertTrue(links.stream().anyMatch(link -> "objects/parent".equals(link.get(DocumentFields.FROM))
+					&& name.equals(link.get(DocumentFields.NAME))));
+		}
+	}
+
+	@Test
+	public void existingName() throws Exception {
+		MemoryStorage storage = storage(true);
+		storage.putEdge("objects/parent", "objects/other", "b");
+		Cmdb cmdb = new Cmdb(storage);
+
+		assertThrows(AlreadyLinkException.class, () -> cmdb.createObjects(document("types", "device"),
+				document("objects", "parent"), documents(3), Arrays.asList("a", "b", "c")));
+
+		assertEquals(1, storage.lookups.get());
+		assertEquals(0, storage.graphs.get());
+		assertEquals(1, storage.count("objects"));
+	}
+
+	@Test
+	public void duplicateName() throws Exception {
+		MemoryStorage storage = storage(true);
+		Cmdb cmdb = new Cmdb(storage);
+
+		assertThrows(AlreadyLinkException.class, () -> cmdb.createObjects(document("types", "device"),
+				document("objects", "parent"), documents(2), Arrays.asList("a", "a")));
+
+		assertEquals(0, storage.lookups.get());
+		assertEquals(0, storage.graphs.get());
+	}
+
+	@Test
+	public void withoutGraphCreate() throws Exception {
+		MemoryStorage storage = storage(false);
+		Cmdb cmdb = new Cmdb(storage);
+
+		List<ObjectDocument> created = cmdb.createObjects(document("types", "device"),
+				document("objects", "parent"), documents(3), Arrays.asList("a", "b", "c"));
+
+		assertEquals(1, storage.lookups.get());
+		assertEquals(3, created.size());
+		for (ObjectDocument document : created) {
+			assertEquals(3, storage.linksTo(document.getId()).size());
+		}
+	}
+
+	@Test
+	public void removedOnFailure() throws Exception {
+		MemoryStorage storage = storage(false);
+		storage.failing = "b";
+		Cmdb cmdb = new Cmdb(storage);
+
+		assertThrows(Exception.class, () -> cmdb.createObjects(document("types", "device"),
+				document("objects", "parent"), documents(3), Arrays.asList("a", "b", "c")));
+
+		// parent only
+		assertEquals(1, storage.count("objects"));
+	}
+
+	@Test
+	public void uniqueIndexViolation() throws Exception {
+		MemoryStorage storage = storage(true);
+		storage.uniqueIndex = true;
+		storage.putEdge("objects/parent", "objects/other", "b");
+
+		Settings.configure(Collections.singletonMap(Cmdb.UNIQUE_LINKS, "true"));
+		try {
+			Cmdb cmdb = new Cmdb(storage);
+
+			// index is trusted, storage rejects duplicate name
+			assertThrows(AlreadyLinkException.class, () -> cmdb.createObjects(document("types", "device"),
+					document("objects", "parent"), documents(3), Arrays.asList("a", "b", "c")));
+
+			assertEquals(0, storage.lookups.get());
+			assertEquals(1, storage.graphs.get());
+			assertEquals(1, storage.count("objects"));
+		} finally {
+			Settings.configure(Collections.singletonMap(Cmdb.UNIQUE_LINKS, "false"));
+		}
+	}
+
+	@Test
+	public void uniqueLinksWithoutIndex() throws Exception {
+		MemoryStorage storage = storage(true);
+		storage.putEdge("objects/parent", "objects/other", "b");
+
+		Settings.configure(Collections.singletonMap(Cmdb.UNIQUE_LINKS, "true"));
+		try {
+			Cmdb cmdb = new Cmdb(storage);
+
+			// storage can't ensure index, names are still pre-checked
+			assertThrows(AlreadyLinkException.class, () -> cmdb.createObjects(document("types", "device"),
+					document("objects", "parent"), documents(3), Arrays.asList("a", "b", "c")));
+
+			assertEquals(1, storage.lookups.get());
+			assertEquals(0, storage.graphs.get());
+		} finally {
+			Settings.configure(Collections.singletonMap(Cmdb.UNIQUE_LINKS, "false"));
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.cmdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.protobuf.ByteString;
+
+public class DocumentCacheTest {
+	private static ByteString payload(String rev, String value) {
+		return ByteString.copyFromUtf8("{\"_id\":\"types/t\",\"_key\":\"t\",\"_rev\":\"" + rev + "\",\"value\":\""
+				+ value + "\"}");
+	}
+
+	@Test
+	public void validatedByRevision() throws Exception {
+		DocumentCache cache = DocumentCache.getInstance();
+		cache.invalidate("types/t");
+
+		List<String> revs = new ArrayList<>();
+
+		ByteString first = cache.get("types/t", true, rev -> {
+			revs.add(rev);
+			return payload("1", "a");
+		});
+		assertEquals(payload("1", "a"), first);
+		assertNull(revs.get(0));
+
+		// unchanged, conditional read has nothing to return
+		ByteString hit = cache.get("types/t", true, rev -> {
+			revs.add(rev);
+			return null;
+		});
+		assertEquals(first, hit);
+		assertEquals("1", revs.get(1));
+
+		// unchanged, read in full
+		hit = cache.get("types/t", true, rev -> payload("1", "a"));
+		assertEquals(first, hit);
+
+		// written by another worker
+		ByteString changed = cache.get("types/t", true, rev -> payload("2", "b"));
+		assertEquals(payload("2", "b"), changed);
+
+		revs.clear();
+		cache.get("types/t", true, rev -> {
+			revs.add(rev);
+			return null;
+		});
+		assertEquals("2", revs.get(0));
+	}
+
+	@Test
+	public void trustedWithoutConditionalReads() throws Exception {
+		DocumentCache cache = new DocumentCache(60000);
+		List<String> revs = new ArrayList<>();
+
+		cache.get("types/t", false, rev -> payload("1", "a"));
+
+		// within ttl hit is not validated
+		ByteString hit = cache.get("types/t", false, rev -> {
+			revs.add(rev);
+			return payload("2", "b");
+		});
+		assertEquals(payload("1", "a"), hit);
+		assertTrue(revs.isEmpty());
+	}
+
+	@Test
+	public void expiredWithoutConditionalReads() throws Exception {
+		DocumentCache cache = new DocumentCache(0);
+		List<String> revs = new ArrayList<>();
+
+		cache.get("types/t", false, rev -> payload("1", "a"));
+
+		// full read, not conditional one
+		ByteString changed = cache.get("types/t", false, rev -> {
+			revs.add(rev);
+			return payload("2", "b");
+		});
+		assertEquals(payload("2", "b"), changed);
+		assertEquals(1, revs.size());
+		assertNull(revs.get(0));
+	}
+
+	@Test
+	public void notCached() throws Exception {
+		DocumentCache cache = DocumentCache.getInstance();
+		List<String> revs = new ArrayList<>();
+
+		for (int i = 0; i < 2; i++) {
+			cache.get("objects/o", true, rev -> {
+				revs.add(rev);
+				return payload("1", "a");
+			});
+		}
+		assertEquals(2, revs.size());
+		assertNull(revs.get(1));
+	}
+}
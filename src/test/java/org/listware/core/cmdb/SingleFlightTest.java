@@ -0,0 +1,94 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.cmdb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class SingleFlightTest {
+
+	// first call blocks until released, returns number of loader runs
+	private static CompletableFuture<Integer> blocked(SingleFlight<String, Integer> flight, String key,
+			AtomicInteger loads, CountDownLatch started, CountDownLatch release) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return flight.call(key, () -> {
+					int load = loads.incrementAndGet();
+					started.countDown();
+					release.await(5, TimeUnit.SECONDS);
+					return load;
+				});
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+	}
+
+	@Test
+	void forgetIf() throws Exception {
+		SingleFlight<String, Integer> flight = new SingleFlight<>();
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		CompletableFuture<Integer> first = blocked(flight, "objects/a\n_rev", loads, started, release);
+		started.await(5, TimeUnit.SECONDS);
+
+		flight.forgetIf(key -> key.startsWith("objects/a\n"));
+		assertEquals(0, flight.inFlight());
+
+		// written meanwhile, later call does not share the old one
+		assertEquals(2, call(flight, "objects/a\n_rev", loads::incrementAndGet));
+
+		release.countDown();
+		assertEquals(1, first.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void error() throws Exception {
+		SingleFlight<String, Integer> flight = new SingleFlight<>();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> call(flight, "objects/a", () -> {
+			started.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			throw new AssertionError("loader failed");
+		}));
+		started.await(5, TimeUnit.SECONDS);
+
+		CompletableFuture<Integer> waiter = CompletableFuture
+				.supplyAsync(() -> call(flight, "objects/a", () -> -1));
+		// let waiter join the call in flight
+		Thread.sleep(100);
+		release.countDown();
+
+		// waiter gets the error instead of blocking
+		ExecutionException failure = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+		assertTrue(failure.getCause() instanceof AssertionError);
+		assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+		assertEquals(0, flight.inFlight());
+	}
+
+	private static Integer call(SingleFlight<String, Integer> flight, String key,
+			Callable<Integer> loader) {
+		try {
+			return flight.call(key, loader);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
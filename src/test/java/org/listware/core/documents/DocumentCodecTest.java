@@ -0,0 +1,190 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.documents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.listware.core.documents.entity.DocumentFields;
+import org.listware.core.utils.exceptions.PayloadNotFoundException;
+
+import com.google.protobuf.ByteString;
+
+public class DocumentCodecTest {
+	static final String OBJECT = "{\"_id\":\"objects/1\",\"_key\":\"1\",\"_rev\":\"_a\","
+			+ "\"_meta\":{\"created\":1,\"updated\":2,\"hash\":\"\"},"
+			+ "\"name\":\"node\",\"size\":42,\"load\":0.5,\"up\":true,\"none\":null,"
+			+ "\"tags\":[\"a\",\"b\"],\"nested\":{\"x\":1}}";
+
+	@Test
+	public void readJson() throws Exception {
+		Map<String, Object> values = DocumentCodec.read(ByteString.copyFromUtf8(OBJECT));
+
+		assertEquals("objects/1", values.get(DocumentFields.ID));
+		assertEquals("node", values.get("name"));
+		assertEquals(42, values.get("size"));
+		assertEquals(new BigDecimal("0.5"), values.get("load"));
+		assertEquals(Boolean.TRUE, values.get("up"));
+		assertTrue(values.containsKey("none"));
+		assertEquals(Arrays.asList("a", "b"), values.get("tags"));
+		assertEquals(1, ((Map<?, ?>) values.get("nested")).get("x"));
+	}
+
+	@Test
+	public void readVelocypack() throws Exception {
+		ObjectDocument document = ObjectDocument.deserialize(ByteString.copyFromUtf8(OBJECT));
+		ByteString vpack = DocumentCodec.write(document, PayloadFormat.VPACK);
+
+		assertEquals(PayloadFormat.VPACK, PayloadFormat.detect(vpack));
+
+		ObjectDocument read = ObjectDocument.deserialize(vpack);
+		assertEquals(document.getId(), read.getId());
+		assertEquals(document.getProperties().get("name"), read.getProperties().get("name"));
+		assertEquals(((Number) document.getProperties().get("size")).longValue(),
+				((Number) read.getProperties().get("size")).longValue());
+		assertEquals(document.getProperties().get("tags"), read.getProperties().get("tags"));
+	}
+
+	@Test
+	public void detectLargeVelocypack() throws Exception {
+		// vpack object over 64 KB, low length byte is '\n' after '\r' head
+		ByteString vpack = null;
+		for (int padding = 70000; vpack == null; padding++) {
+			char[] chars = new char[padding];
+			Arrays.fill(chars, 'x');
+			ObjectDocument document = ObjectDocument
+					.deserialize(ByteString.copyFromUtf8("{\"_key\":\"1\",\"pad\":\"" + new String(chars) + "\"}"));
+
+			ByteString written = DocumentCodec.write(document, PayloadFormat.VPACK);
+			if (written.byteAt(0) == '\r' && written.byteAt(1) == '\n') {
+				vpack = written;
+			}
+		}
+
+		assertEquals(PayloadFormat.VPACK, PayloadFormat.detect(vpack));
+		assertEquals("1", ObjectDocument.deserialize(vpack).getKey());
+	}
+
+	@Test
+	public void detectJsonWhitespace() {
+		assertEquals(PayloadFormat.JSON, PayloadFormat.detect(ByteString.copyFromUtf8("\r\n {}")));
+		assertEquals(PayloadFormat.JSON, PayloadFormat.detect(ByteString.copyFromUtf8("\n\t{}")));
+		assertEquals(PayloadFormat.VPACK, PayloadFormat.detect(ByteString.copyFrom(new byte[] { 0x0a })));
+	}
+
+	@Test
+	public void readEmpty() {
+		assertThrows(PayloadNotFoundException.class, () -> DocumentCodec.read(ByteString.EMPTY));
+		assertThrows(PayloadNotFoundException.class, () -> DocumentCodec.scan(ByteString.EMPTY));
+	}
+
+	@Test
+	public void scanSystemFields() throws Exception {
+		Map<String, Object> values = DocumentCodec.scan(ByteString.copyFromUtf8(OBJECT));
+
+		assertEquals("objects/1", values.get(DocumentFields.ID));
+		assertEquals("1", values.get(DocumentFields.KEY));
+		assertEquals("_a", values.get(DocumentFields.REV));
+		assertTrue(values.containsKey(DocumentFields.META));
+		assertFalse(values.containsKey("name"));
+		assertFalse(values.containsKey("nested"));
+	}
+
+	@Test
+	public void writeRoundTrip() throws Exception {
+		ObjectDocument document = ObjectDocument.deserialize(ByteString.copyFromUtf8(OBJECT));
+		ObjectDocument read = ObjectDocument.deserialize(DocumentCodec.write(document, PayloadFormat.JSON));
+
+		// meta 'updated' is stamped on read, compare content
+		assertEquals(document.getId(), read.getId());
+		assertEquals(document.getRevision(), read.getRevision());
+		assertEquals(document.getMeta().getCreated(), read.getMeta().getCreated());
+		assertEquals(document.getProperties(), read.getProperties());
+	}
+
+	@Test
+	public void lazyPassThrough() throws Exception {
+		ByteString payload = ByteString.copyFromUtf8(OBJECT);
+		ObjectDocument document = ObjectDocument.lazy(payload);
+
+		assertTrue(document.isLazy());
+		assertEquals("1", document.getKey());
+		assertSame(payload, document.serialize());
+
+		document.addAttribute("name", "other");
+		assertNotEquals(payload, document.serialize());
+	}
+
+	@Test
+	public void fingerprintIgnoresKeyOrder() throws Exception {
+		Map<String, Object> nested = new LinkedHashMap<>();
+		nested.put("b", 2);
+		nested.put("a", 1);
+
+		Map<String, Object> first = new LinkedHashMap<>();
+		first.put("x", "1");
+		first.put("nested", nested);
+
+		Map<String, Object> reversed = new LinkedHashMap<>();
+		reversed.put("a", 1);
+		reversed.put("b", 2);
+
+		Map<String, Object> second = new LinkedHashMap<>();
+		second.put("nested", reversed);
+		second.put("x", "1");
+
+		assertEquals(DocumentCodec.fingerprint(first), DocumentCodec.fingerprint(second));
+
+		second.put("x", "2");
+		assertNotEquals(DocumentCodec.fingerprint(first), DocumentCodec.fingerprint(second));
+	}
+
+	@Test
+	public void fingerprintOfReadDocument() throws Exception {
+		ObjectDocument document = ObjectDocument.deserialize(ByteString.copyFromUtf8(OBJECT));
+		ObjectDocument lazy = ObjectDocument.lazy(ByteString.copyFromUtf8(OBJECT));
+
+		assertEquals(document.fingerprint(), lazy.fingerprint());
+
+		List<Object> tags = Arrays.asList("a", "c");
+		document.addAttribute("tags", tags);
+		assertNotEquals(document.fingerprint(), lazy.fingerprint());
+	}
+
+	@Test
+	public void linkFingerprintHasSystemFields() throws Exception {
+		LinkDocument link = new LinkDocument("objects/a", "objects/b", "t", "b");
+		link.addAttribute("value", 1);
+		String fingerprint = link.fingerprint();
+
+		LinkDocument other = new LinkDocument("objects/a", "objects/c", "t", "b");
+		other.addAttribute("value", 1);
+		assertNotEquals(fingerprint, other.fingerprint());
+
+		other = new LinkDocument("objects/a", "objects/b", "t", "c");
+		other.addAttribute("value", 1);
+		assertNotEquals(fingerprint, other.fingerprint());
+
+		other = new LinkDocument("objects/a", "objects/b", "u", "b");
+		other.addAttribute("value", 1);
+		assertNotEquals(fingerprint, other.fingerprint());
+
+		other = new LinkDocument("objects/a", "objects/b", "t", "b");
+		other.addAttribute("value", 1);
+		assertEquals(fingerprint, other.fingerprint());
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.documents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.listware.core.documents.entity.DocumentFields;
+
+import com.google.protobuf.ByteString;
+
+public class DocumentPatchTest {
+	private static final String LINK = "{\"_id\":\"links/1\",\"_key\":\"1\",\"_from\":\"objects/a\","
+			+ "\"_to\":\"objects/b\",\"_name\":\"b\",\"_type\":\"t\",\"_meta\":{\"created\":1,\"updated\":2},"
+			+ "\"value\":1}";
+
+	@Test
+	public void notLoaded() throws Exception {
+		ObjectDocument document = new ObjectDocument("1");
+		document.addAttribute("name", "node");
+
+		DocumentPatch patch = DocumentPatch.of(document);
+
+		assertFalse(patch.isReplace());
+		assertEquals(document.serialize(), patch.getPayload());
+	}
+
+	@Test
+	public void unchanged() throws Exception {
+		ObjectDocument document = ObjectDocument.lazy(ByteString.copyFromUtf8(DocumentCodecTest.OBJECT));
+
+		DocumentPatch patch = DocumentPatch.of(document);
+
+		assertFalse(patch.isReplace());
+		assertTrue(DocumentCodec.read(patch.getPayload()).isEmpty());
+	}
+
+	@Test
+	public void changedProperty() throws Exception {
+		ObjectDocument document = ObjectDocument.lazy(ByteString.copyFromUtf8(DocumentCodecTest.OBJECT));
+		document.addAttribute("name", "other");
+
+		DocumentPatch patch = DocumentPatch.of(document);
+		Map<String, Object> values = DocumentCodec.read(patch.getPayload());
+
+		assertFalse(patch.isReplace());
+		assertEquals("other", values.get("name"));
+		assertFalse(values.containsKey("size"));
+		assertFalse(values.containsKey("nested"));
+		assertTrue(values.containsKey(DocumentFields.META));
+	}
+
+	@Test
+	public void changedNested() throws Exception {
+		ObjectDocument document = ObjectDocument.lazy(ByteString.copyFromUtf8(DocumentCodecTest.OBJECT));
+
+		Map<String, Object> nested = new LinkedHashMap<>();
+		nested.put("x", 1);
+		nested.put("y", 2);
+		document.addAttribute("nested", nested);
+
+		DocumentPatch patch = DocumentPatch.of(document);
+		Map<?, ?> values = (Map<?, ?>) DocumentCodec.read(patch.getPayload()).get("nested");
+
+		assertFalse(patch.isReplace());
+		assertEquals(1, values.size());
+		assertEquals(2, values.get("y"));
+	}
+
+	@Test
+	public void removedProperty() throws Exception {
+		ObjectDocument document = ObjectDocument.lazy(ByteString.copyFromUtf8(DocumentCodecTest.OBJECT));
+		document.getProperties().remove("size");
+
+		DocumentPatch patch = DocumentPatch.of(document);
+
+		assertTrue(patch.isReplace());
+		assertFalse(DocumentCodec.read(patch.getPayload()).containsKey("size"));
+	}
+
+	@Test
+	public void changedLinkSystemField() throws Exception {
+		LinkDocument document = LinkDocument.lazy(ByteString.copyFromUtf8(LINK));
+		document.setTo("objects/c");
+
+		DocumentPatch patch = DocumentPatch.of(document);
+
+		assertTrue(patch.isReplace());
+		assertEquals("objects/c", DocumentCodec.read(patch.getPayload()).get(DocumentFields.TO));
+	}
+
+	@Test
+	public void merge() {
+		Map<String, Object> nested = new LinkedHashMap<>();
+		nested.put("x", 1);
+		Map<String, Object> base = new LinkedHashMap<>();
+		base.put("nested", nested);
+		base.put("a", 1);
+
+		Map<String, Object> patchNested = new LinkedHashMap<>();
+		patchNested.put("y", 2);
+		Map<String, Object> patch = new LinkedHashMap<>();
+		patch.put("nested", patchNested);
+
+		Map<String, Object> merged = DocumentPatch.merge(base, patch);
+
+		assertEquals(1, merged.get("a"));
+		assertEquals(2, ((Map<?, ?>) merged.get("nested")).size());
+	}
+}
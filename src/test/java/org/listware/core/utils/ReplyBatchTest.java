@@ -0,0 +1,43 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.listware.sdk.Result;
+
+public class ReplyBatchTest {
+
+	private static Result.FunctionResult result(String key) {
+		return Result.FunctionResult.newBuilder().setComplete(true)
+				.setReplyEgress(Result.ReplyResult.newBuilder().setKey(key)).build();
+	}
+
+	@Test
+	void batch() throws Exception {
+		List<Result.FunctionResult> results = Arrays.asList(result("a"), result("b"));
+
+		String key = ReplyBatch.key("3");
+		assertEquals(key, ReplyBatch.key("3"));
+		assertTrue(ReplyBatch.isBatch(key));
+
+		assertEquals(results, ReplyBatch.results(key, ReplyBatch.encode(results)));
+	}
+
+	@Test
+	void single() throws Exception {
+		Result.FunctionResult result = result("a");
+
+		assertFalse(ReplyBatch.isBatch("a"));
+		assertEquals(Arrays.asList(result), ReplyBatch.results("a", result.toByteString()));
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ *  Copyright 2023 NJWS Inc.
+ *  Copyright 2022 Listware
+ */
+
+package org.listware.core.utils.state;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.junit.jupiter.api.Test;
+import org.listware.core.cmdb.RegisterMessageState;
+import org.listware.core.utils.ErrorContainerState;
+import org.listware.core.utils.ReplyContainer;
+import org.listware.sdk.Result;
+
+public class StateSerializerTest {
+
+	private static <T> T roundTrip(TypeSerializer<T> serializer, T value) throws IOException {
+		DataOutputSerializer out = new DataOutputSerializer(64);
+		serializer.serialize(value, out);
+		return serializer.deserialize(new DataInputDeserializer(out.getSharedBuffer(), 0, out.length()));
+	}
+
+	@Test
+	void errorContainer() throws Exception {
+		ErrorContainerState value = new ErrorContainerState();
+		value.append("first");
+		value.append("second");
+
+		ErrorContainerState read = roundTrip(new ErrorContainerSerializer(), value);
+		assertFalse(read.getComplete());
+		assertEquals(Arrays.asList("first", "second"), read.getErrors());
+
+		assertTrue(roundTrip(new ErrorContainerSerializer(), new ErrorContainerState()).getComplete());
+	}
+
+	@Test
+	void replyContainer() throws Exception {
+		ReplyContainer value = new ReplyContainer();
+		value.setIsEgress(true);
+		value.setReplyResult(Result.ReplyResult.newBuilder().setKey("key").setTopic("topic").build());
+
+		ReplyContainer read = roundTrip(new ReplyContainerSerializer(), value);
+		assertTrue(read.getIsEgress());
+		assertEquals(value.getReplyResult(), read.getReplyResult());
+	}
+
+	@Test
+	void registerMessage() throws Exception {
+		RegisterMessageState value = new RegisterMessageState();
+		value.getTypes().add(new byte[] { 1, 2 });
+		value.getLinks().add(new byte[] { 3 });
+		value.getLinks().add(new byte[0]);
+
+		RegisterMessageState read = roundTrip(new RegisterMessageSerializer(), value);
+		assertEquals(1, read.getTypes().size());
+		assertArrayEquals(new byte[] { 1, 2 }, read.getTypes().get(0));
+		assertTrue(read.getObjects().isEmpty());
+		assertEquals(2, read.getLinks().size());
+		assertArrayEquals(new byte[] { 3 }, read.getLinks().get(0));
+		assertArrayEquals(new byte[0], read.getLinks().get(1));
+	}
+
+	@Test
+	void copy() {
+		ErrorContainerState value = new ErrorContainerState();
+		value.append("error");
+
+		ErrorContainerState copy = new ErrorContainerSerializer().copy(value);
+		assertNotSame(value, copy);
+		assertEquals(value.getErrors(), copy.getErrors());
+	}
+
+	@Test
+	void unknownVersion() throws Exception {
+		DataOutputSerializer out = new DataOutputSerializer(64);
+		new ErrorContainerSerializer().serialize(new ErrorContainerState(), out);
+
+		TypeSerializer<ErrorContainerState> serializer = new ErrorContainerSerializer().withVersion(2);
+		assertThrows(IOException.class,
+				() -> serializer.deserialize(new DataInputDeserializer(out.getSharedBuffer(), 0, out.length())));
+	}
+
+	@Test
+	void duplicate() {
+		StateSerializer<ErrorContainerState> serializer = new ErrorContainerSerializer().withVersion(2);
+
+		StateSerializer<ErrorContainerState> duplicate = (StateSerializer<ErrorContainerState>) serializer
+				.duplicate();
+		assertNotSame(serializer, duplicate);
+		assertEquals(serializer, duplicate);
+		assertEquals(2, duplicate.getVersion());
+	}
+
+	@Test
+	void snapshot() throws Exception {
+		ReplyContainerSerializer serializer = new ReplyContainerSerializer();
+		TypeSerializerSnapshot<ReplyContainer> snapshot = serializer.snapshotConfiguration();
+
+		DataOutputSerializer out = new DataOutputSerializer(64);
+		snapshot.writeSnapshot(out);
+
+		StateSerializerSnapshot<ReplyContainer> restored = new StateSerializerSnapshot<>();
+		restored.readSnapshot(snapshot.getCurrentVersion(),
+				new DataInputDeserializer(out.getSharedBuffer(), 0, out.length()), getClass().getClassLoader());
+
+		assertEquals(serializer, restored.restoreSerializer());
+		assertTrue(restored.resolveSchemaCompatibility(new ReplyContainerSerializer()).isCompatibleAsIs());
+	}
+}